@@ -2,11 +2,12 @@ package com.crow6980.nusantarascript;
 
 import com.crow6980.nusantarascript.command.CustomCommandRegistry;
 import com.crow6980.nusantarascript.commands.NusantaraCommand;
+import com.crow6980.nusantarascript.compiler.WorldLinker;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
 import com.crow6980.nusantarascript.manager.ScriptManager;
+import com.crow6980.nusantarascript.manager.ScriptWatcher;
 import com.crow6980.nusantarascript.manager.VariableManager;
 import com.crow6980.nusantarascript.registry.EventRegistry;
-import com.crow6980.nusantarascript.registry.ScriptEventListener;
 import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 
@@ -19,6 +20,8 @@ public class NusantaraScript extends JavaPlugin {
     private VariableManager variableManager;
     private EnhancedScriptExecutor scriptExecutor;
     private CustomCommandRegistry customCommandRegistry;
+    private ScriptWatcher scriptWatcher;
+    private WorldLinker worldLinker;
     private boolean debugMode = false;
     private File scriptsFolder;
     
@@ -27,20 +30,27 @@ public class NusantaraScript extends JavaPlugin {
         instance = this;
         
         // 1. First, setup the folders (This fixes the 'never used' warning)
+        saveDefaultConfig();
         initializeDirectories();
         
         // 2. Then, setup the logic managers
         initializeManagers();
         
         // 3. Register Global Listeners
-        // Main class onEnable
-        getServer().getPluginManager().registerEvents(new ScriptEventListener(this, scriptExecutor), this);
+        // Script event listeners are registered by the EventRegistry, per event type in use
+        getServer().getPluginManager().registerEvents(worldLinker, this);
+        getServer().getPluginManager().registerEvents(customCommandRegistry.getPlayerIndex(), this);
+        customCommandRegistry.getPlayerIndex().rebuild();
         
         // 4. Register Commands
         getCommand("nusantara").setExecutor(new NusantaraCommand(this, scriptManager));
         
         // 5. Load everything
         reloadScripts();
+        scriptExecutor.start();
+        
+        // 6. Watch the scripts folder for edits
+        startScriptWatcher();
         
         getLogger().info("NusantaraScript has been enabled successfully!");
     }
@@ -65,6 +75,7 @@ public class NusantaraScript extends JavaPlugin {
 
     private void initializeManagers() {
         this.variableManager = new VariableManager(this);
+        this.worldLinker = new WorldLinker(this);
         this.scriptExecutor = new EnhancedScriptExecutor(this, variableManager);
         this.customCommandRegistry = new CustomCommandRegistry(this, scriptExecutor);
         this.eventRegistry = new EventRegistry(this, scriptExecutor);
@@ -74,6 +85,8 @@ public class NusantaraScript extends JavaPlugin {
     }
 
     public void reloadScripts() {
+        reloadConfig();
+        if (scriptExecutor != null) scriptExecutor.reloadSettings();
         if (eventRegistry != null) eventRegistry.clear();
         if (customCommandRegistry != null) customCommandRegistry.unregisterAll();
         if (variableManager != null) {
@@ -85,8 +98,26 @@ public class NusantaraScript extends JavaPlugin {
         getLogger().info("Berhasil memuat " + loaded + " skrip!");
     }
 
+    /**
+     * Starts hot reload if enabled in config.yml
+     */
+    private void startScriptWatcher() {
+        if (!getConfig().getBoolean("hot-reload.enabled", true)) return;
+        
+        scriptWatcher = new ScriptWatcher(this, scriptManager, scriptsFolder,
+                getConfig().getLong("hot-reload.debounce-ms", 250));
+        try {
+            scriptWatcher.start();
+        } catch (java.io.IOException e) {
+            getLogger().warning("Hot reload tidak bisa dimulai: " + e.getMessage());
+            scriptWatcher = null;
+        }
+    }
+
     @Override
     public void onDisable() {
+        if (scriptWatcher != null) scriptWatcher.stop();
+        if (scriptExecutor != null) scriptExecutor.shutdown();
         if (eventRegistry != null) eventRegistry.unregisterAll();
         if (customCommandRegistry != null) customCommandRegistry.unregisterAll();
         if (variableManager != null) variableManager.saveVariables();
@@ -96,6 +127,7 @@ public class NusantaraScript extends JavaPlugin {
     public static NusantaraScript getInstance() { return instance; }
     public EventRegistry getEventRegistry() { return eventRegistry; }
     public VariableManager getVariableManager() { return variableManager; }
+    public WorldLinker getWorldLinker() { return worldLinker; }
     public EnhancedScriptExecutor getExecutor() { return scriptExecutor; }
     public CustomCommandRegistry getCustomCommandRegistry() { return customCommandRegistry; }
     public boolean isDebugEnabled() { return debugMode; }
@@ -0,0 +1,204 @@
+package com.crow6980.nusantarascript.command;
+
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed arguments of a script command, compiled once from its declaration.
+ *
+ * Syntax (after the command name):
+ *     &lt;nama&gt;           required text argument
+ *     [&lt;nama&gt;]         optional argument
+ *     &lt;nama:tipe&gt;      typed argument: pemain, angka, material or teks
+ *     &lt;pemain&gt;         a type name alone is both the name and the type
+ *
+ * {@link #bind} checks the arguments of one invocation in a single pass and
+ * stores the typed values (Player, Double, Material, String) in the context,
+ * so {arg2} of an angka argument is read without parsing again. Tab
+ * completion comes from sorted prefix indexes, see {@link CompletionIndex}.
+ *
+ * @author crow6980
+ */
+public final class ArgumentSchema {
+
+    public static final ArgumentSchema EMPTY = new ArgumentSchema(Collections.emptyList());
+
+    /**
+     * Argument types, with their script names
+     */
+    public enum Type {
+        PLAYER("pemain", "player"),
+        NUMBER("angka", "number"),
+        MATERIAL("material", "item"),
+        TEXT("teks", "text");
+
+        private final String name;
+        private final String alias;
+
+        Type(String name, String alias) {
+            this.name = name;
+            this.alias = alias;
+        }
+
+        public String getScriptName() {
+            return name;
+        }
+
+        static Type byName(String name) {
+            for (Type type : values()) {
+                if (type.name.equalsIgnoreCase(name) || type.alias.equalsIgnoreCase(name)) return type;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One declared argument
+     */
+    public static final class Argument {
+        private final String name;
+        private final Type type;
+        private final boolean optional;
+
+        Argument(String name, Type type, boolean optional) {
+            this.name = name;
+            this.type = type;
+            this.optional = optional;
+        }
+
+        public String getName() { return name; }
+        public Type getType() { return type; }
+        public boolean isOptional() { return optional; }
+
+        @Override
+        public String toString() {
+            String inner = type == Type.TEXT || name.equalsIgnoreCase(type.name) ? name : name + ":" + type.name;
+            return optional ? "[<" + inner + ">]" : "<" + inner + ">";
+        }
+    }
+
+    private final Argument[] arguments;
+    private final int required;
+
+    private ArgumentSchema(List<Argument> arguments) {
+        this.arguments = arguments.toArray(new Argument[0]);
+        int count = 0;
+        for (Argument argument : this.arguments) {
+            if (!argument.optional) count++;
+        }
+        this.required = count;
+    }
+
+    /**
+     * Compiles argument definitions as parsed from "perintah /name &lt;a&gt; [&lt;b:angka&gt;]:"
+     * @param definitions The words after the command name
+     * @param problems Receives a message for every unknown type (the argument then becomes teks)
+     */
+    public static ArgumentSchema compile(List<String> definitions, List<String> problems) {
+        if (definitions.isEmpty()) return EMPTY;
+
+        List<Argument> arguments = new ArrayList<>(definitions.size());
+        for (String definition : definitions) {
+            String text = definition.trim();
+            boolean optional = text.startsWith("[") && text.endsWith("]");
+            if (optional) text = text.substring(1, text.length() - 1);
+            if (text.startsWith("<") && text.endsWith(">")) text = text.substring(1, text.length() - 1);
+            if (text.isEmpty()) continue;
+
+            String name = text;
+            Type type = Type.byName(text);
+            int colon = text.indexOf(':');
+            if (colon >= 0) {
+                name = text.substring(0, colon);
+                type = Type.byName(text.substring(colon + 1));
+                if (type == null) problems.add("Tipe argumen tidak dikenal: " + text.substring(colon + 1) + " (pakai teks)");
+            }
+            arguments.add(new Argument(name, type != null ? type : Type.TEXT, optional));
+        }
+        return new ArgumentSchema(arguments);
+    }
+
+    public boolean isEmpty() {
+        return arguments.length == 0;
+    }
+
+    public Argument[] getArguments() {
+        return arguments.clone();
+    }
+
+    /**
+     * Usage line, e.g. "/beri &lt;pemain&gt; &lt;jumlah:angka&gt; [&lt;item:material&gt;]"
+     */
+    public String usage(String commandName) {
+        StringBuilder sb = new StringBuilder(32).append('/').append(commandName);
+        for (Argument argument : arguments) sb.append(' ').append(argument);
+        return sb.toString();
+    }
+
+    // ==================== INVOCATION ====================
+
+    /**
+     * Validates the arguments of one invocation and stores their typed values in the context
+     * @return null if the arguments are valid, otherwise the error to show the sender
+     */
+    public String bind(String[] args, ExecutionContext context) {
+        if (arguments.length == 0) return null;
+        if (args.length < required) {
+            for (int i = args.length; i < arguments.length; i++) {
+                if (!arguments[i].optional) return "Argumen <" + arguments[i].name + "> wajib diisi.";
+            }
+        }
+
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length && i < args.length; i++) {
+            String raw = args[i];
+            switch (arguments[i].type) {
+                case PLAYER -> {
+                    Player player = Bukkit.getPlayerExact(raw);
+                    if (player == null) return "Pemain tidak ditemukan: " + raw;
+                    values[i] = player;
+                }
+                case NUMBER -> {
+                    try {
+                        values[i] = Double.parseDouble(raw);
+                    } catch (NumberFormatException e) {
+                        return raw + " bukan angka.";
+                    }
+                }
+                case MATERIAL -> {
+                    Material material = Material.matchMaterial(raw);
+                    if (material == null) return "Material tidak dikenal: " + raw;
+                    values[i] = material;
+                }
+                case TEXT -> values[i] = raw;
+            }
+        }
+        context.setArgValues(values);
+        return null;
+    }
+
+    /**
+     * Suggestions for the argument being typed, from prebuilt sorted indexes
+     */
+    public List<String> complete(String[] args, OnlinePlayerIndex players) {
+        int index = args.length - 1;
+        if (index < 0 || index >= arguments.length) return Collections.emptyList();
+        String prefix = args[index];
+        return switch (arguments[index].type) {
+            case PLAYER -> players.complete(prefix);
+            case MATERIAL -> CompletionIndex.materials().complete(prefix);
+            case NUMBER, TEXT -> Collections.emptyList();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return usage("");
+    }
+}
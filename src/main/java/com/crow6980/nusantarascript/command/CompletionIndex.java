@@ -0,0 +1,88 @@
+package com.crow6980.nusantarascript.command;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable, sorted list of completion candidates.
+ *
+ * Candidates are sorted by their lower-case form once, so a prefix lookup is
+ * two binary searches and a copy of the matching range; nothing is scanned
+ * per keystroke.
+ *
+ * @author crow6980
+ */
+public final class CompletionIndex {
+
+    public static final CompletionIndex EMPTY = new CompletionIndex(Collections.emptyList());
+
+    private static volatile CompletionIndex materials;
+
+    private final String[] keys;   // lower-case, sorted
+    private final String[] values; // as shown, same order
+
+    public CompletionIndex(Collection<String> candidates) {
+        String[][] pairs = new String[candidates.size()][];
+        int i = 0;
+        for (String candidate : candidates) {
+            pairs[i++] = new String[] { candidate.toLowerCase(Locale.ROOT), candidate };
+        }
+        Arrays.sort(pairs, (a, b) -> a[0].compareTo(b[0]));
+        keys = new String[pairs.length];
+        values = new String[pairs.length];
+        for (i = 0; i < pairs.length; i++) {
+            keys[i] = pairs[i][0];
+            values[i] = pairs[i][1];
+        }
+    }
+
+    /**
+     * Candidates starting with the prefix, ignoring case, in sorted order
+     */
+    public List<String> complete(String prefix) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(key);
+        // Every string with the prefix sorts before prefix + Character.MAX_VALUE
+        int to = lowerBound(key + Character.MAX_VALUE);
+        if (from >= to) return Collections.emptyList();
+        return new ArrayList<>(Arrays.asList(values).subList(from, to));
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Lower-case names of all item materials, built on first use
+     */
+    public static CompletionIndex materials() {
+        CompletionIndex index = materials;
+        if (index == null) {
+            List<String> names = new ArrayList<>();
+            for (Material material : Material.values()) {
+                if (material.isItem() && !material.name().startsWith("LEGACY_")) {
+                    names.add(material.name().toLowerCase(Locale.ROOT));
+                }
+            }
+            materials = index = new CompletionIndex(names);
+        }
+        return index;
+    }
+}
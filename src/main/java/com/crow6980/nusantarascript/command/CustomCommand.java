@@ -3,6 +3,7 @@ package com.crow6980.nusantarascript.command;
 import com.crow6980.nusantarascript.script.Action;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,6 +14,7 @@ import java.util.List;
  * Syntax:
  *     perintah /commandname:
  *         izin: "permission.node"
+ *         tunggu: 30 detik
  *         aksi:
  *             kirim "Hello!" ke pemain
  *             pulihkan pemain
@@ -27,6 +29,10 @@ public class CustomCommand {
     private final List<Action> actions;
     private final String description;
     private final int lineNumber;
+    private long cooldownMillis; // 0 = none
+    
+    // Read-only view handed out by getActions(), so callers never copy
+    private final List<Action> actionsView;
     
     /**
      * Create a command with no arguments.
@@ -51,9 +57,10 @@ public class CustomCommand {
     // explicit argument lists, permissions, and descriptions.
     public CustomCommand(String name, List<String> arguments, String permission, String description, int lineNumber) {
         this.name = name;
-        this.arguments = arguments != null ? arguments : new ArrayList<>();
+        this.arguments = arguments != null ? List.copyOf(arguments) : List.of();
         this.permission = permission;
         this.actions = new ArrayList<>();
+        this.actionsView = Collections.unmodifiableList(actions);
         this.description = description != null ? description : "Custom command from NusantaraScript";
         this.lineNumber = lineNumber;
     }
@@ -62,6 +69,10 @@ public class CustomCommand {
         actions.add(action);
     }
     
+    public void setCooldownMillis(long cooldownMillis) {
+        this.cooldownMillis = cooldownMillis;
+    }
+    
     public String getName() {
         return name;
     }
@@ -70,15 +81,18 @@ public class CustomCommand {
         return permission;
     }
     
+    /**
+     * @return Read-only view of the command actions
+     */
     public List<Action> getActions() {
-        return new ArrayList<>(actions);
+        return actionsView;
     }
 
     /**
-     * Returns the list of argument definitions declared with the command.
+     * Returns the immutable list of argument definitions declared with the command.
      */
     public List<String> getArguments() {
-        return new ArrayList<>(arguments);
+        return arguments;
     }
     
     public String getDescription() {
@@ -89,6 +103,13 @@ public class CustomCommand {
         return lineNumber;
     }
     
+    /**
+     * @return Per-player cooldown from "tunggu: N detik", or 0
+     */
+    public long getCooldownMillis() {
+        return cooldownMillis;
+    }
+    
     @Override
     public String toString() {
         return "CustomCommand{name='" + name + "', permission='" + permission + 
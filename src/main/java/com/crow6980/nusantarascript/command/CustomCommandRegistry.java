@@ -1,8 +1,10 @@
 package com.crow6980.nusantarascript.command;
 
 import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.compiler.CompiledCommand;
+import com.crow6980.nusantarascript.execution.CooldownMap;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
-import com.crow6980.nusantarascript.script.Action;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
@@ -16,18 +18,27 @@ import java.util.*;
 /**
  * Handles the registration and execution of commands defined in .ns scripts.
  * Uses reflection to inject commands directly into Bukkit's CommandMap.
+ * 
+ * Arguments are checked against the command's {@link ArgumentSchema} before
+ * the body runs; tab completion is served from {@link OnlinePlayerIndex} and
+ * other sorted {@link CompletionIndex}es.
  */
 public class CustomCommandRegistry {
     
     private final NusantaraScript plugin;
     private final EnhancedScriptExecutor executor;
-    private final Map<String, CustomCommand> registeredCommands;
+    private final Map<String, CompiledCommand> registeredCommands;
+    // Bukkit command objects stay in the CommandMap across reloads and look up
+    // the current script command by name, so a reload only swaps the logic
+    private final Map<String, Command> bukkitCommands;
+    private final OnlinePlayerIndex playerIndex = new OnlinePlayerIndex();
     private CommandMap commandMap;
     
     public CustomCommandRegistry(NusantaraScript plugin, EnhancedScriptExecutor executor) {
         this.plugin = plugin;
         this.executor = executor;
         this.registeredCommands = new HashMap<>();
+        this.bukkitCommands = new HashMap<>();
         this.commandMap = getCommandMap();
     }
 
@@ -46,27 +57,48 @@ public class CustomCommandRegistry {
     }
     
     /**
-     * Registers a command parsed from an .ns script into the server.
-     * @param customCommand The command data container.
+     * Registers a command compiled from an .ns script into the server.
+     * @param customCommand The compiled command.
      */
-    public void registerCommand(CustomCommand customCommand) {
+    public void registerCommand(CompiledCommand customCommand) {
         if (commandMap == null) return;
         
         String commandName = customCommand.getName().toLowerCase();
         // Strip leading slash if present
         if (commandName.startsWith("/")) commandName = commandName.substring(1);
         
+        registeredCommands.put(commandName, customCommand);
+        
+        Command existing = bukkitCommands.get(commandName);
+        if (existing != null) {
+            // Already in the CommandMap from an earlier load: only refresh its metadata
+            existing.setDescription(customCommand.getDescription());
+            existing.setPermission(customCommand.getPermission());
+            plugin.getLogger().info("Updated custom command: /" + commandName);
+            return;
+        }
+        
         // Create the Bukkit-compatible command object on the fly
+        final String name = commandName;
         Command bukkitCmd = new Command(commandName) {
             @Override
             public boolean execute(@NotNull CommandSender sender, @NotNull String label, @NotNull String[] args) {
-                return executeCustomCommand(customCommand, sender, args);
+                CompiledCommand current = registeredCommands.get(name);
+                if (current == null) {
+                    sender.sendMessage("§cPerintah ini sudah tidak tersedia.");
+                    return true;
+                }
+                return executeCustomCommand(current, sender, args);
             }
 
             @Override
             public @NotNull List<String> tabComplete(@NotNull CommandSender sender, @NotNull String alias, @NotNull String[] args) {
-                // Future implementation: can be pulled from script metadata
-                return Collections.emptyList(); 
+                CompiledCommand current = registeredCommands.get(name);
+                if (current == null) return Collections.emptyList();
+                if (current.getPermission() != null && !sender.hasPermission(current.getPermission())) {
+                    return Collections.emptyList();
+                }
+                return current.getSchema().complete(args, playerIndex);
             }
         };
         
@@ -80,7 +112,7 @@ public class CustomCommandRegistry {
         
         // Register using a fallback prefix 'nusantarascript'
         commandMap.register("nusantarascript", bukkitCmd);
-        registeredCommands.put(commandName, customCommand);
+        bukkitCommands.put(commandName, bukkitCmd);
         
         plugin.getLogger().info("Registered custom command: /" + commandName);
     }
@@ -88,39 +120,51 @@ public class CustomCommandRegistry {
     /**
      * Bridges the Minecraft command execution to the Script Executor.
      */
-    private boolean executeCustomCommand(CustomCommand customCommand, CommandSender sender, String[] args) {
+    private boolean executeCustomCommand(CompiledCommand customCommand, CommandSender sender, String[] args) {
         // Permission Check
         if (customCommand.getPermission() != null && !sender.hasPermission(customCommand.getPermission())) {
             sender.sendMessage("§cKamu tidak memiliki izin untuk menjalankan perintah ini!");
             return true;
         }
         
-        // Prepare context variables for the script
-        Map<String, Object> context = new HashMap<>();
-        if (sender instanceof Player player) {
-            context.put("player", player);
+        // Cooldown check comes before any context is built
+        CooldownMap cooldowns = customCommand.getCooldowns();
+        Player cooling = cooldowns != null && sender instanceof Player player ? player : null;
+        long now = System.currentTimeMillis();
+        if (cooling != null) {
+            long remaining = cooldowns.remaining(cooling.getUniqueId(), now);
+            if (remaining > 0) {
+                sender.sendMessage("§cTunggu §f" + ((remaining + 999) / 1000) + " detik §clagi sebelum memakai perintah ini.");
+                return true;
+            }
         }
         
-        context.put("sender", sender);
+        // Prepare context values for the script: {arg1}, {arg2}, {args_count} and {all_args} read the args slot
+        ExecutionContext context = executor.acquireContext(sender instanceof Player player ? player : null, null);
+        context.setSender(sender);
+        context.setArgs(args);
         
-        // Map arguments so scripts can use {arg1}, {arg2}, etc.
-        for (int i = 0; i < args.length; i++) {
-            context.put("arg" + (i + 1), args[i]);
+        // Typed arguments are checked once, before any action runs
+        String error = customCommand.getSchema().bind(args, context);
+        if (error != null) {
+            executor.releaseContext(context);
+            sender.sendMessage("§c" + error);
+            sender.sendMessage("§7Penggunaan: §f" + customCommand.getSchema().usage(customCommand.getName()));
+            return true;
         }
-        context.put("args_count", args.length);
-        context.put("all_args", String.join(" ", args));
+        if (cooling != null) cooldowns.start(cooling.getUniqueId(), now);
 
         // Execute the actions defined in the script
         try {
-            for (Action action : customCommand.getActions()) {
-                executor.executeAction(action, context);
-            }
+            executor.executeCommand(customCommand, context);
         } catch (Exception e) {
             sender.sendMessage("§cTerjadi kesalahan internal saat menjalankan perintah skrip!");
             plugin.getLogger().severe("Error executing custom command /" + customCommand.getName() + ": " + e.getMessage());
             if (plugin.isDebugEnabled()) {
                 e.printStackTrace();
             }
+        } finally {
+            executor.releaseContext(context);
         }
         
         return true;
@@ -135,11 +179,48 @@ public class CustomCommandRegistry {
         registeredCommands.clear();
     }
     
+    /**
+     * Removes every command that was declared in the given script file.
+     * Used by hot reload; commands that the new version declares again are
+     * re-registered right after and keep their Bukkit command object.
+     */
+    public void unregisterScript(String scriptName) {
+        registeredCommands.values().removeIf(command -> command.getScriptName().equals(scriptName));
+    }
+    
+    /**
+     * Removes Bukkit commands whose script command no longer exists
+     * (e.g. after the declaring script was deleted or edited).
+     */
+    public void pruneBukkitCommands() {
+        if (commandMap == null) return;
+        
+        Iterator<Map.Entry<String, Command>> it = bukkitCommands.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Command> entry = it.next();
+            if (registeredCommands.containsKey(entry.getKey())) continue;
+            
+            Command bukkitCmd = entry.getValue();
+            bukkitCmd.unregister(commandMap);
+            commandMap.getKnownCommands().remove(entry.getKey(), bukkitCmd);
+            commandMap.getKnownCommands().remove("nusantarascript:" + entry.getKey(), bukkitCmd);
+            it.remove();
+            plugin.getLogger().info("Unregistered custom command: /" + entry.getKey());
+        }
+    }
+    
     public boolean isCommandRegistered(String commandName) {
         return registeredCommands.containsKey(commandName.toLowerCase());
     }
 
-    public Map<String, CustomCommand> getRegisteredCommands() {
+    public Map<String, CompiledCommand> getRegisteredCommands() {
         return registeredCommands;
     }
+
+    /**
+     * Online player names for tab completion; registered as a listener by the plugin
+     */
+    public OnlinePlayerIndex getPlayerIndex() {
+        return playerIndex;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.crow6980.nusantarascript.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sorted index of online player names for tab completion.
+ *
+ * Rebuilt on join and quit (rare) instead of scanning the online players on
+ * every keystroke (frequent). Readers get an immutable {@link CompletionIndex}
+ * snapshot, so completing is safe from any thread.
+ *
+ * @author crow6980
+ */
+public class OnlinePlayerIndex implements Listener {
+
+    private final Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private volatile CompletionIndex index = CompletionIndex.EMPTY;
+
+    /**
+     * Fills the index with the players already online (plugin enabled or reloaded at runtime)
+     */
+    public void rebuild() {
+        names.clear();
+        for (Player player : Bukkit.getOnlinePlayers()) names.add(player.getName());
+        index = new CompletionIndex(names);
+    }
+
+    public List<String> complete(String prefix) {
+        return index.complete(prefix);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        names.add(event.getPlayer().getName());
+        index = new CompletionIndex(names);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        names.remove(event.getPlayer().getName());
+        index = new CompletionIndex(names);
+    }
+}
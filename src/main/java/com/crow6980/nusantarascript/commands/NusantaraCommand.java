@@ -1,6 +1,8 @@
 package com.crow6980.nusantarascript.commands;
 
 import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.execution.ExecutionBudget;
+import com.crow6980.nusantarascript.manager.LoadTimings;
 import com.crow6980.nusantarascript.manager.ScriptManager;
 import com.crow6980.nusantarascript.script.EventHandler;
 import org.bukkit.command.Command;
@@ -20,6 +22,8 @@ import java.util.Map;
  * - /nusantara reload - Reload all scripts
  * - /nusantara list - List loaded scripts
  * - /nusantara info - Show plugin information
+ * - /nusantara timings load [n] - Show the slowest files and stages of the last load
+ * - /nusantara breaker [reset <file[:line]|semua>] - Show or reset handler circuit breakers
  * 
  * @author crow6980
  */
@@ -58,6 +62,14 @@ public class NusantaraCommand implements CommandExecutor, TabCompleter {
                 handleInfo(sender);
                 break;
                 
+            case "timings":
+                handleTimings(sender, args);
+                break;
+                
+            case "breaker":
+                handleBreaker(sender, args);
+                break;
+                
             default:
                 sendHelp(sender);
                 break;
@@ -75,6 +87,7 @@ public class NusantaraCommand implements CommandExecutor, TabCompleter {
         
         sender.sendMessage("§aSelesai! §7(" + (endTime - startTime) + "ms)");
         sender.sendMessage("§aDimuat: §f" + scriptManager.getLoadedScriptCount() + " skrip");
+        sender.sendMessage("§7Rincian: §f/nusantara timings load");
     }
     
     private void handleList(CommandSender sender) {
@@ -112,17 +125,120 @@ public class NusantaraCommand implements CommandExecutor, TabCompleter {
         }
     }
     
+    private void handleTimings(CommandSender sender, String[] args) {
+        if (args.length < 2 || !args[1].equalsIgnoreCase("load")) {
+            sender.sendMessage("§cPenggunaan: /nusantara timings load [jumlah]");
+            return;
+        }
+        
+        int limit = 5;
+        if (args.length >= 3) {
+            try {
+                limit = Math.max(1, Integer.parseInt(args[2]));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cJumlah harus berupa angka: " + args[2]);
+                return;
+            }
+        }
+        
+        LoadTimings timings = scriptManager.getTimings();
+        if (timings.getFiles().isEmpty()) {
+            sender.sendMessage("§cBelum ada data waktu muat.");
+            return;
+        }
+        
+        sender.sendMessage("§e§l=== Waktu Muat Skrip ===");
+        sender.sendMessage("§eTotal: §f" + millis(timings.getWallNanos()) + " §7(" + timings.getFiles().size()
+                + " file, " + timings.getCacheHits() + " dari cache)");
+        if (LoadTimings.isAllocationSupported()) {
+            sender.sendMessage("§eMemori dialokasikan: §f" + kilobytes(timings.getAllocatedBytes()));
+        }
+        
+        // Stages, slowest first (summed over all files, so parallel stages can exceed the total)
+        sender.sendMessage("§eTahap:");
+        List<LoadTimings.Stage> stages = new ArrayList<>(Arrays.asList(LoadTimings.Stage.values()));
+        stages.sort((a, b) -> Long.compare(timings.getStageNanos(b), timings.getStageNanos(a)));
+        for (LoadTimings.Stage stage : stages) {
+            sender.sendMessage("  §7- §f" + stage.name().toLowerCase() + " §7" + millis(timings.getStageNanos(stage)));
+        }
+        
+        sender.sendMessage("§eFile paling lambat:");
+        for (LoadTimings.FileTiming file : timings.getSlowestFiles(limit)) {
+            sender.sendMessage("  §7- §f" + file.getFilename() + " §7" + millis(file.getTotalNanos())
+                    + " (terlama: " + file.getSlowestStage().name().toLowerCase() + " " + millis(file.getNanos(file.getSlowestStage()))
+                    + ", " + file.getHandlers() + " event, " + file.getCommands() + " perintah"
+                    + (LoadTimings.isAllocationSupported() ? ", " + kilobytes(file.getAllocatedBytes()) : "")
+                    + (file.isCacheHit() ? ", cache" : "") + ")");
+        }
+    }
+    
+    private void handleBreaker(CommandSender sender, String[] args) {
+        ExecutionBudget budget = plugin.getExecutor().getBudget();
+        
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            if (args.length < 3) {
+                sender.sendMessage("§cPenggunaan: /nusantara breaker reset <file.ns[:baris]|semua>");
+                return;
+            }
+            String target = args[2].equalsIgnoreCase("semua") ? null : args[2];
+            int reset = budget.reset(target);
+            sender.sendMessage(reset > 0
+                    ? "§aBreaker direset: §f" + reset + " handler"
+                    : "§7Tidak ada breaker yang cocok dengan §f" + args[2]);
+            return;
+        }
+        
+        List<ExecutionBudget.Account> struck = budget.getStruck();
+        List<ExecutionBudget.Account> deferred = budget.getDeferredScripts();
+        if (struck.isEmpty() && deferred.isEmpty()) {
+            sender.sendMessage("§aSemua handler berjalan dalam batas waktu.");
+            return;
+        }
+        
+        sender.sendMessage("§e§l=== Circuit Breaker ===");
+        for (ExecutionBudget.Account account : struck) {
+            sender.sendMessage("  §7- §f" + account.getName() + " §7" + account.getStrikes() + "x melewati batas"
+                    + (account.isTripped() ? " §c(dimatikan)" : ""));
+        }
+        for (ExecutionBudget.Account account : deferred) {
+            sender.sendMessage("  §7- §f" + account.getName() + " §7" + account.getDeferred()
+                    + "x ditunda karena batas skrip");
+        }
+        sender.sendMessage("§7Reset: §f/nusantara breaker reset <file.ns[:baris]|semua>");
+    }
+    
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+    
+    private static String kilobytes(long bytes) {
+        return String.format("%.1fKB", bytes / 1024.0);
+    }
+    
     private void sendHelp(CommandSender sender) {
         sender.sendMessage("§e§l=== NusantaraScript Commands ===");
         sender.sendMessage("§7/nusantara reload §f- Muat ulang semua skrip");
         sender.sendMessage("§7/nusantara list §f- Daftar skrip yang dimuat");
         sender.sendMessage("§7/nusantara info §f- Informasi plugin");
+        sender.sendMessage("§7/nusantara timings load §f- Waktu muat per file dan tahap");
+        sender.sendMessage("§7/nusantara breaker §f- Handler yang melewati batas waktu per tick");
     }
     
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
-            return Arrays.asList("reload", "list", "info");
+            return Arrays.asList("reload", "list", "info", "timings", "breaker");
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("timings")) {
+            return Arrays.asList("load");
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("breaker")) {
+            return Arrays.asList("reset");
+        }
+        if (args.length == 3 && args[0].equalsIgnoreCase("breaker") && args[1].equalsIgnoreCase("reset")) {
+            List<String> targets = new ArrayList<>(scriptManager.getLoadedScripts().keySet());
+            targets.add("semua");
+            return targets;
         }
         return new ArrayList<>();
     }
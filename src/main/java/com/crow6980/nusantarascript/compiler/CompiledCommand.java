@@ -0,0 +1,106 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.command.ArgumentSchema;
+import com.crow6980.nusantarascript.command.CustomCommand;
+import com.crow6980.nusantarascript.execution.CooldownMap;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+
+import java.util.List;
+
+/**
+ * Immutable, executable form of a {@link CustomCommand} (perintah block).
+ *
+ * @author crow6980
+ */
+public final class CompiledCommand {
+
+    private final String name;
+    private final List<String> arguments;
+    private final ArgumentSchema schema;
+    private final String permission;
+    private final String description;
+    private final String scriptName;
+    private final int lineNumber;
+    private final Instruction[] instructions;
+    private final ScriptBody body;
+    private final int localCount;
+    private final CooldownMap cooldowns; // null without tunggu:
+
+    public CompiledCommand(CustomCommand source, ArgumentSchema schema, String scriptName,
+                           Instruction[] instructions, ScriptBody body, int localCount) {
+        this.name = source.getName();
+        this.arguments = List.copyOf(source.getArguments());
+        this.schema = schema;
+        this.permission = source.getPermission();
+        this.description = source.getDescription();
+        this.scriptName = scriptName;
+        this.lineNumber = source.getLineNumber();
+        this.instructions = instructions;
+        this.body = body;
+        this.localCount = localCount;
+        this.cooldowns = source.getCooldownMillis() > 0 ? new CooldownMap(source.getCooldownMillis()) : null;
+    }
+
+    /**
+     * Runs the command body against the given context.
+     * Local variables ({_name}) start empty on every run.
+     */
+    public void run(ExecutionContext context) {
+        context.resetLocals(localCount);
+        body.run(context);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Typed arguments, checked before the body runs
+     */
+    public ArgumentSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Per-player cooldown state, or null if the command has no tunggu: line
+     */
+    public CooldownMap getCooldowns() {
+        return cooldowns;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getScriptName() {
+        return scriptName;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public Instruction[] getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Number of {_name} local variable slots the body uses
+     */
+    public int getLocalCount() {
+        return localCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledCommand{name='" + name + "', " + scriptName + ":" + lineNumber + ", instructions=" + instructions.length + "}";
+    }
+}
@@ -0,0 +1,105 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.execution.CooldownMap;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import com.crow6980.nusantarascript.script.EventHandler;
+
+/**
+ * Immutable, executable form of an {@link EventHandler}.
+ * Top-level actions and jika blocks are merged back into source order.
+ *
+ * @author crow6980
+ */
+public final class CompiledHandler {
+
+    private final EventHandler.EventType eventType;
+    private final String scriptName;
+    private final int lineNumber;
+    private final Instruction[] instructions;
+    private final ScriptBody body;
+    private final int localCount;
+    private final boolean asyncSafe;
+    private final boolean cancelsEvent;
+    private final HandlerGuard guard;
+    private final CooldownMap cooldowns; // null without tunggu:
+
+    public CompiledHandler(EventHandler.EventType eventType, String scriptName, int lineNumber,
+                           Instruction[] instructions, ScriptBody body, int localCount, boolean asyncSafe,
+                           long cooldownMillis) {
+        this.eventType = eventType;
+        this.scriptName = scriptName;
+        this.lineNumber = lineNumber;
+        this.instructions = instructions;
+        this.body = body;
+        this.localCount = localCount;
+        this.asyncSafe = asyncSafe;
+        this.cancelsEvent = Instruction.anyCancelsEvent(instructions);
+        this.guard = HandlerGuard.of(instructions);
+        this.cooldowns = cooldownMillis > 0 ? new CooldownMap(cooldownMillis) : null;
+    }
+
+    /**
+     * Runs the handler body against the given context.
+     * Local variables ({_name}) start empty on every run.
+     */
+    public void run(ExecutionContext context) {
+        context.resetLocals(localCount);
+        body.run(context);
+    }
+
+    public EventHandler.EventType getEventType() {
+        return eventType;
+    }
+
+    public String getScriptName() {
+        return scriptName;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public Instruction[] getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Number of {_name} local variable slots the body uses
+     */
+    public int getLocalCount() {
+        return localCount;
+    }
+
+    /**
+     * True if every instruction may run on an async event thread, see {@link Instruction#isAsyncSafe()}
+     */
+    public boolean isAsyncSafe() {
+        return asyncSafe;
+    }
+
+    /**
+     * True if the body contains batalkan event, which only works while the event is still running
+     */
+    public boolean cancelsEvent() {
+        return cancelsEvent;
+    }
+
+    /**
+     * Block type, world and permission the handler needs to do anything
+     */
+    public HandlerGuard getGuard() {
+        return guard;
+    }
+
+    /**
+     * Per-player cooldown state, or null if the handler has no tunggu: line
+     */
+    public CooldownMap getCooldowns() {
+        return cooldowns;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledHandler{" + eventType + ", " + scriptName + ":" + lineNumber + ", instructions=" + instructions.length + "}";
+    }
+}
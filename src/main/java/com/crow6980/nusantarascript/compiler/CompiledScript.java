@@ -0,0 +1,57 @@
+package com.crow6980.nusantarascript.compiler;
+
+import java.util.List;
+
+/**
+ * Output of {@link ScriptCompiler} for a single .ns file
+ *
+ * @author crow6980
+ */
+public final class CompiledScript {
+
+    private final String filename;
+    private final List<CompiledHandler> handlers;
+    private final List<CompiledCommand> commands;
+    private final List<String> warnings;
+    private final List<WorldRef.Use> worldUses;
+
+    public CompiledScript(String filename, List<CompiledHandler> handlers, List<CompiledCommand> commands,
+                          List<String> warnings, List<WorldRef.Use> worldUses) {
+        this.filename = filename;
+        this.handlers = List.copyOf(handlers);
+        this.commands = List.copyOf(commands);
+        this.warnings = List.copyOf(warnings);
+        this.worldUses = List.copyOf(worldUses);
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public List<CompiledHandler> getHandlers() {
+        return handlers;
+    }
+
+    public List<CompiledCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Load-time problems found while compiling (unknown materials, bad numbers, ...)
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * World references to bind in the link stage ({@link WorldLinker#link})
+     */
+    public List<WorldRef.Use> getWorldUses() {
+        return worldUses;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledScript{" + filename + ", handlers=" + handlers.size() + ", commands=" + commands.size() + "}";
+    }
+}
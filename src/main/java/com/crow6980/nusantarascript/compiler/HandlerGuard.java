@@ -0,0 +1,162 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Cheap preconditions of a handler, found by looking at how its body starts.
+ *
+ * A handler whose whole body is one jika block without jika tidak (or a
+ * MaterialSwitch without fallback) does nothing unless that condition holds.
+ * Nested blocks of that shape are peeled one by one, so
+ *
+ *   saat blok dihancurkan:
+ *       jika blok adalah "DIAMOND_ORE":
+ *           jika dunia adalah "survival":
+ *               ...
+ *
+ * gets the guard {DIAMOND_ORE, world "survival"}. The
+ * {@link com.crow6980.nusantarascript.registry.EventRegistry} indexes block
+ * types and chat message tests ({message} adalah / diawali dengan / berisi
+ * "text"), and the executor checks world and permission before doing any
+ * other work for the handler. The conditions stay in the body, so a guard
+ * only skips runs that would have done nothing.
+ *
+ * @author crow6980
+ */
+public final class HandlerGuard {
+
+    /**
+     * How a guarded chat message is compared with the guard text, ignoring case
+     */
+    public enum MessageMatch { EQUALS, STARTS_WITH, CONTAINS }
+
+    public static final HandlerGuard NONE = new HandlerGuard(null, null, null, null, null);
+
+    private final Set<Material> materials; // null: any block
+    private final String world;            // null: any world
+    private final String permission;       // null: no permission needed
+    private final MessageMatch messageMatch; // null: any message
+    private final String messageText;
+
+    private HandlerGuard(Set<Material> materials, String world, String permission,
+                         MessageMatch messageMatch, String messageText) {
+        this.materials = materials != null ? Collections.unmodifiableSet(materials) : null;
+        this.world = world;
+        this.permission = permission;
+        this.messageMatch = messageMatch;
+        this.messageText = messageText;
+    }
+
+    /**
+     * Finds the guard of a compiled handler body
+     */
+    public static HandlerGuard of(Instruction[] instructions) {
+        Set<Material> materials = null;
+        String world = null;
+        String permission = null;
+        MessageMatch messageMatch = null;
+        String messageText = null;
+
+        Instruction[] body = instructions;
+        while (body.length == 1) {
+            if (body[0] instanceof Instruction.Branch branch && branch.getOtherwise().length == 0) {
+                Condition condition = branch.getCondition();
+                MessageMatch match = messageMatch == null ? messageTest(condition) : null;
+                if (condition instanceof Condition.BlockTypeCondition block) {
+                    materials = restrict(materials, EnumSet.of(block.getMaterial()));
+                } else if (condition instanceof Condition.WorldCondition check && world == null) {
+                    world = check.getWorldName();
+                } else if (condition instanceof Condition.PermissionCondition check && permission == null) {
+                    permission = check.getPermission();
+                } else if (match != null) {
+                    messageMatch = match;
+                    messageText = ((Condition.StringLiteral) ((Condition.ExpressionCondition) condition).getRight()).getValue();
+                } else {
+                    break;
+                }
+                body = branch.getThen();
+            } else if (body[0] instanceof Instruction.MaterialSwitch materialSwitch && materialSwitch.getOtherwise().length == 0) {
+                Set<Material> cases = EnumSet.noneOf(Material.class);
+                cases.addAll(materialSwitch.getCases().keySet());
+                materials = restrict(materials, cases);
+                break;
+            } else {
+                break;
+            }
+        }
+
+        if (materials == null && world == null && permission == null && messageMatch == null) return NONE;
+        return new HandlerGuard(materials, world, permission, messageMatch, messageText);
+    }
+
+    /**
+     * {message} adalah / diawali dengan / berisi "text" with a non-empty text
+     */
+    private static MessageMatch messageTest(Condition condition) {
+        if (!(condition instanceof Condition.ExpressionCondition expression)) return null;
+        if (!(expression.getLeft() instanceof Condition.ContextSlot slot) || !slot.getName().equals("message")) return null;
+        if (!(expression.getRight() instanceof Condition.StringLiteral text) || text.getValue().isEmpty()) return null;
+        return switch (expression.getOperator()) {
+            case EQUALS -> MessageMatch.EQUALS;
+            case STARTS_WITH -> MessageMatch.STARTS_WITH;
+            case CONTAINS -> MessageMatch.CONTAINS;
+            default -> null;
+        };
+    }
+
+    private static Set<Material> restrict(Set<Material> current, Set<Material> allowed) {
+        if (current == null) return allowed;
+        current.retainAll(allowed);
+        return current;
+    }
+
+    /**
+     * Checks the world and permission guard. Block types are handled by the registry index.
+     */
+    public boolean admits(ExecutionContext context) {
+        if (world == null && permission == null) return true;
+        Player player = context.getPlayer();
+        if (player == null) return false;
+        if (world != null && !player.getWorld().getName().equalsIgnoreCase(world)) return false;
+        return permission == null || player.hasPermission(permission);
+    }
+
+    /**
+     * The block types the handler can act on, or null if it may act on any block
+     */
+    public Set<Material> getMaterials() {
+        return materials;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    /**
+     * How the chat message is tested, or null if the handler accepts any message
+     */
+    public MessageMatch getMessageMatch() {
+        return messageMatch;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    @Override
+    public String toString() {
+        return "HandlerGuard{materials=" + materials + ", world=" + world + ", permission=" + permission
+                + (messageMatch != null ? ", message " + messageMatch + " \"" + messageText + "\"" : "") + "}";
+    }
+}
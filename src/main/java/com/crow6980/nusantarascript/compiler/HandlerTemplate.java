@@ -0,0 +1,42 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Class file template for {@link HiddenClassBackend}.
+ *
+ * This class is never loaded under its own name. Its bytes are defined again
+ * as a hidden class for every handler, with that handler's composed
+ * MethodHandle passed as class data. Because BODY is a static final field of
+ * the hidden class, the JIT treats the whole handle tree as a constant and
+ * can inline every instruction into run().
+ *
+ * @author crow6980
+ */
+final class HandlerTemplate implements ScriptBody {
+
+    private static final MethodHandle BODY;
+
+    static {
+        try {
+            BODY = MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public boolean run(ExecutionContext context) {
+        try {
+            return (boolean) BODY.invokeExact(context);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Optional execution backend that gives every handler and command its own class.
+ *
+ * Each instruction tree is composed into one MethodHandle: a sequence becomes a
+ * chain of guardWithTest (so berhenti short-circuits), a jika block becomes a
+ * guardWithTest on the condition, and every instruction is bound to its own
+ * receiver. The handle is then installed as the constant body of a hidden class
+ * cloned from {@link HandlerTemplate}, so HotSpot compiles each handler as
+ * straight-line code instead of going through a shared, megamorphic loop.
+ *
+ * Hidden classes are defined without ClassOption.STRONG: once the registries
+ * drop a script on reload, its classes become unreachable and are unloaded.
+ *
+ * @author crow6980
+ */
+public final class HiddenClassBackend {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType BODY_TYPE = MethodType.methodType(boolean.class, ExecutionContext.class);
+
+    private static final MethodHandle EXECUTE;
+    private static final MethodHandle EVALUATE;
+    private static final MethodHandle TRUE;
+    private static final MethodHandle FALSE;
+
+    static {
+        try {
+            EXECUTE = LOOKUP.findVirtual(Instruction.class, "execute", BODY_TYPE);
+            EVALUATE = LOOKUP.findVirtual(Condition.class, "evaluate", BODY_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        TRUE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, ExecutionContext.class);
+        FALSE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, ExecutionContext.class);
+    }
+
+    private final byte[] template;
+
+    private HiddenClassBackend(byte[] template) {
+        this.template = template;
+    }
+
+    /**
+     * Loads the template class file from the plugin jar
+     * @throws IOException if the template cannot be read
+     */
+    public static HiddenClassBackend create() throws IOException {
+        try (InputStream in = HiddenClassBackend.class.getResourceAsStream("HandlerTemplate.class")) {
+            if (in == null) throw new IOException("HandlerTemplate.class not found");
+            return new HiddenClassBackend(in.readAllBytes());
+        }
+    }
+
+    /**
+     * Defines a hidden class running the given instructions
+     */
+    public ScriptBody define(Instruction[] instructions) throws ReflectiveOperationException {
+        MethodHandle body = compose(instructions);
+        MethodHandles.Lookup hidden = LOOKUP.defineHiddenClassWithClassData(template, body, true);
+        MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class));
+        try {
+            return (ScriptBody) constructor.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ReflectiveOperationException(t);
+        }
+    }
+
+    /**
+     * Composes a block into a single (ExecutionContext)boolean handle.
+     * Built back to front: each instruction guards the rest of the block.
+     */
+    private static MethodHandle compose(Instruction[] block) {
+        if (block.length == 0) return TRUE;
+        MethodHandle rest = compose(block[block.length - 1]);
+        for (int i = block.length - 2; i >= 0; i--) {
+            rest = MethodHandles.guardWithTest(compose(block[i]), rest, FALSE);
+        }
+        return rest;
+    }
+
+    private static MethodHandle compose(Instruction instruction) {
+        if (instruction instanceof Instruction.Stop) {
+            return FALSE;
+        }
+        if (instruction instanceof Instruction.Branch branch) {
+            return MethodHandles.guardWithTest(EVALUATE.bindTo(branch.getCondition()),
+                    compose(branch.getThen()), compose(branch.getOtherwise()));
+        }
+        return EXECUTE.bindTo(instruction);
+    }
+}
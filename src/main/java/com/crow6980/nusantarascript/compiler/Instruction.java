@@ -0,0 +1,554 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import com.crow6980.nusantarascript.manager.VariableManager;
+import com.crow6980.nusantarascript.manager.VariableRef;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Executable form of a script {@link com.crow6980.nusantarascript.script.Action}.
+ *
+ * Instructions are built once by {@link ScriptCompiler} and never change afterwards.
+ * Every operand (numbers, materials, keys, message templates) is resolved at load
+ * time, so running an instruction does no string parsing.
+ *
+ * @author crow6980
+ */
+public abstract class Instruction {
+
+    // --- MESSAGES ---
+
+    public static final class SendMessage extends Instruction {
+        private final MessageTemplate message;
+        public SendMessage(MessageTemplate message, int lineNumber) {
+            super(lineNumber);
+            this.message = message;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player != null) context.sendMessage(player, message.component(context));
+            return true;
+        }
+        public MessageTemplate getMessage() { return message; }
+    }
+
+    /**
+     * Several consecutive kirim lines, merged by {@link Optimizer} into one instruction
+     */
+    public static final class SendMessages extends Instruction {
+        private final MessageTemplate[] messages;
+        public SendMessages(MessageTemplate[] messages, int lineNumber) {
+            super(lineNumber);
+            this.messages = messages;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player == null) return true;
+            for (MessageTemplate message : messages) context.sendMessage(player, message.component(context));
+            return true;
+        }
+        public MessageTemplate[] getMessages() { return messages; }
+    }
+
+    public static final class Broadcast extends Instruction {
+        private final MessageTemplate message;
+        public Broadcast(MessageTemplate message, int lineNumber) {
+            super(lineNumber);
+            this.message = message;
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            // One component per firing, shared by every recipient
+            context.flushMessages();
+            Bukkit.broadcast(message.component(context));
+            return true;
+        }
+    }
+
+    public static final class KickPlayer extends Instruction {
+        private final MessageTemplate reason;
+        public KickPlayer(MessageTemplate reason, int lineNumber) {
+            super(lineNumber);
+            this.reason = reason;
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player != null) {
+                context.flushMessages();
+                player.kick(reason.component(context));
+            }
+            return true;
+        }
+    }
+
+    // --- EVENT & PLAYER STATE ---
+
+    public static final class CancelEvent extends Instruction {
+        private final NusantaraScript plugin;
+        public CancelEvent(NusantaraScript plugin, int lineNumber) {
+            super(lineNumber);
+            this.plugin = plugin;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override public boolean cancelsEvent() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            if (context.getEvent() instanceof Cancellable cancellable) {
+                cancellable.setCancelled(true);
+                if (plugin.isDebugEnabled()) {
+                    plugin.getLogger().info("[Debug] Event dibatalkan via skrip.");
+                }
+            }
+            return true;
+        }
+    }
+
+    public static final class HealPlayer extends Instruction {
+        public HealPlayer(int lineNumber) { super(lineNumber); }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player != null) {
+                player.setHealth(20.0);
+                player.setFoodLevel(20);
+            }
+            return true;
+        }
+    }
+
+    public static final class FeedPlayer extends Instruction {
+        public FeedPlayer(int lineNumber) { super(lineNumber); }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player != null) player.setFoodLevel(20);
+            return true;
+        }
+    }
+
+    public static final class GiveItem extends Instruction {
+        private final ItemStack template;
+        public GiveItem(Material material, int amount, int lineNumber) {
+            super(lineNumber);
+            this.template = new ItemStack(material, amount);
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            // addItem may keep or change the stack it is given, so hand out copies of the template
+            if (player != null) player.getInventory().addItem(template.clone());
+            return true;
+        }
+    }
+
+    public static final class Teleport extends Instruction {
+        private final WorldRef world;
+        private final double x, y, z;
+        // Rebuilt only when the world is re-linked (reloaded or recreated)
+        private volatile Location location;
+        public Teleport(WorldRef world, double x, double y, double z, int lineNumber) {
+            super(lineNumber);
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player == null) return true;
+            World target = world.get();
+            if (target == null) return true;
+            Location loc = location;
+            if (loc == null || loc.getWorld() != target) {
+                location = loc = new Location(target, x, y, z);
+            }
+            player.teleport(loc.clone());
+            return true;
+        }
+        public WorldRef getWorld() { return world; }
+    }
+
+    public static final class PlaySound extends Instruction {
+        private final Sound sound;
+        public PlaySound(Sound sound, int lineNumber) {
+            super(lineNumber);
+            this.sound = sound;
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player != null) player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
+            return true;
+        }
+    }
+
+    public static final class GiveEffect extends Instruction {
+        // PotionEffect is immutable, so one instance serves every run
+        private final PotionEffect effect;
+        public GiveEffect(PotionEffectType type, int durationTicks, int amplifier, int lineNumber) {
+            super(lineNumber);
+            this.effect = new PotionEffect(type, durationTicks, amplifier);
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (player != null) player.addPotionEffect(effect);
+            return true;
+        }
+    }
+
+    // --- VARIABLES ---
+
+    /**
+     * setel {name} = value: a constant in the form scripts show numbers in goes to the number store,
+     * anything else is text
+     */
+    public static final class SetVariable extends Instruction {
+        private final VariableManager variableManager;
+        private final VariableRef variable;
+        private final MessageTemplate value;
+        private final double number; // NaN unless the value is a constant number
+        public SetVariable(VariableManager variableManager, VariableRef variable, MessageTemplate value, int lineNumber) {
+            super(lineNumber);
+            this.variableManager = variableManager;
+            this.variable = variable;
+            this.value = value;
+            this.number = value.isConstant() ? constantNumber(value.render(null)) : Double.NaN;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Player player = getPlayer(context);
+            if (variable.isPlayerScoped() && player == null) return true;
+            if (!Double.isNaN(number)) {
+                variable.setNumber(variableManager, player, number);
+            } else {
+                variable.set(variableManager, player, value.render(context));
+            }
+            return true;
+        }
+        /**
+         * The number a constant value holds, if it reads back as exactly the same text;
+         * "007", "1.50" or "5f" stay text so they keep showing as written
+         * @return NaN if the value is to be stored as text
+         */
+        public static double constantNumber(String text) {
+            double number;
+            try {
+                number = Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+            if (!Double.isFinite(number) || !VariableManager.formatNumber(number).equals(text)) {
+                return Double.NaN;
+            }
+            return number;
+        }
+    }
+
+    /**
+     * tambah / kurangi: the sign is folded into the amount at compile time
+     */
+    public static final class ModifyVariable extends Instruction {
+        private final VariableManager variableManager;
+        private final VariableRef variable;
+        private final double amount;
+        public ModifyVariable(VariableManager variableManager, VariableRef variable, double amount, int lineNumber) {
+            super(lineNumber);
+            this.variableManager = variableManager;
+            this.variable = variable;
+            this.amount = amount;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            variable.add(variableManager, getPlayer(context), amount);
+            return true;
+        }
+    }
+
+    public static final class DeleteVariable extends Instruction {
+        private final VariableManager variableManager;
+        private final VariableRef variable;
+        public DeleteVariable(VariableManager variableManager, VariableRef variable, int lineNumber) {
+            super(lineNumber);
+            this.variableManager = variableManager;
+            this.variable = variable;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            variable.delete(variableManager, getPlayer(context));
+            return true;
+        }
+    }
+
+    /**
+     * setel {_naam}: local variables live in a context slot, not in the VariableManager
+     */
+    public static final class SetLocal extends Instruction {
+        private final int slot;
+        private final MessageTemplate value;
+        public SetLocal(int slot, MessageTemplate value, int lineNumber) {
+            super(lineNumber);
+            this.slot = slot;
+            this.value = value;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            context.setLocal(slot, value.render(context));
+            return true;
+        }
+    }
+
+    public static final class ModifyLocal extends Instruction {
+        private final int slot;
+        private final double amount;
+        public ModifyLocal(int slot, double amount, int lineNumber) {
+            super(lineNumber);
+            this.slot = slot;
+            this.amount = amount;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            // Same rule as VariableManager.add: numeric text counts, anything else is 0
+            if (context.hasLocalNumber(slot)) {
+                context.setLocalNumber(slot, context.getLocalNumber(slot) + amount);
+                return true;
+            }
+            Object current = context.getLocal(slot);
+            double value = 0;
+            if (current instanceof Number number) {
+                value = number.doubleValue();
+            } else if (current != null) {
+                try {
+                    value = Double.parseDouble(current.toString().trim());
+                } catch (NumberFormatException ignored) {
+                    // not a number: start from 0
+                }
+            }
+            context.setLocalNumber(slot, value + amount);
+            return true;
+        }
+    }
+
+    public static final class DeleteLocal extends Instruction {
+        private final int slot;
+        public DeleteLocal(int slot, int lineNumber) {
+            super(lineNumber);
+            this.slot = slot;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            context.setLocal(slot, null);
+            return true;
+        }
+    }
+
+    // --- CONTROL FLOW ---
+
+    /**
+     * jika / jika tidak. Else-if chains are nested branches in the otherwise part.
+     */
+    public static final class Branch extends Instruction {
+        private final Condition condition;
+        private final Instruction[] then;
+        private final Instruction[] otherwise;
+        public Branch(Condition condition, Instruction[] then, Instruction[] otherwise, int lineNumber) {
+            super(lineNumber);
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+        @Override
+        public boolean isAsyncSafe() {
+            return condition.isAsyncSafe() && allAsyncSafe(then) && allAsyncSafe(otherwise);
+        }
+        @Override
+        public boolean cancelsEvent() {
+            return anyCancelsEvent(then) || anyCancelsEvent(otherwise);
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            return runAll(condition.evaluate(context) ? then : otherwise, context);
+        }
+        public Condition getCondition() { return condition; }
+        public Instruction[] getThen() { return then; }
+        public Instruction[] getOtherwise() { return otherwise; }
+    }
+
+    /**
+     * berhenti: aborts the rest of the handler, including enclosing blocks
+     */
+    public static final class Stop extends Instruction {
+        public Stop(int lineNumber) { super(lineNumber); }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            return false;
+        }
+    }
+
+    /**
+     * Jump table for an else-if chain of jika blok adalah "X" blocks, built by {@link Optimizer}
+     */
+    public static final class MaterialSwitch extends Instruction {
+        private final Map<Material, Instruction[]> cases;
+        private final Instruction[] otherwise;
+        public MaterialSwitch(Map<Material, Instruction[]> cases, Instruction[] otherwise, int lineNumber) {
+            super(lineNumber);
+            this.cases = new EnumMap<>(cases);
+            this.otherwise = otherwise;
+        }
+        @Override
+        public boolean cancelsEvent() {
+            for (Instruction[] body : cases.values()) {
+                if (anyCancelsEvent(body)) return true;
+            }
+            return anyCancelsEvent(otherwise);
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            Block block = context.getBlock();
+            Instruction[] target = block != null ? cases.get(block.getType()) : null;
+            return runAll(target != null ? target : otherwise, context);
+        }
+        public Map<Material, Instruction[]> getCases() { return cases; }
+        public Instruction[] getOtherwise() { return otherwise; }
+    }
+
+    /**
+     * Jump table for an else-if chain of jika {x} == "text" blocks on the same operand,
+     * built by {@link Optimizer}. Matching ignores case, like ExpressionCondition.
+     */
+    public static final class TextSwitch extends Instruction {
+        private final Condition.Operand subject;
+        private final Map<String, Instruction[]> cases;
+        private final Instruction[] otherwise;
+        public TextSwitch(Condition.Operand subject, Map<String, Instruction[]> cases, Instruction[] otherwise, int lineNumber) {
+            super(lineNumber);
+            this.subject = subject;
+            TreeMap<String, Instruction[]> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            sorted.putAll(cases);
+            this.cases = sorted;
+            this.otherwise = otherwise;
+        }
+        @Override
+        public boolean isAsyncSafe() {
+            for (Instruction[] body : cases.values()) {
+                if (!allAsyncSafe(body)) return false;
+            }
+            return allAsyncSafe(otherwise);
+        }
+        @Override
+        public boolean cancelsEvent() {
+            for (Instruction[] body : cases.values()) {
+                if (anyCancelsEvent(body)) return true;
+            }
+            return anyCancelsEvent(otherwise);
+        }
+        @Override
+        public boolean execute(ExecutionContext context) {
+            String value = subject.text(context);
+            Instruction[] target = value != null ? cases.get(value) : null;
+            return runAll(target != null ? target : otherwise, context);
+        }
+        public Map<String, Instruction[]> getCases() { return cases; }
+        public Instruction[] getOtherwise() { return otherwise; }
+    }
+
+    // --- BASE CLASS LOGIC ---
+
+    protected final int lineNumber;
+    protected Instruction(int lineNumber) { this.lineNumber = lineNumber; }
+
+    /**
+     * Executes this instruction
+     * @return false if the handler must stop (berhenti), true to continue
+     */
+    public abstract boolean execute(ExecutionContext context);
+
+    public int getLineNumber() { return lineNumber; }
+
+    /**
+     * True if the instruction may run on an async event thread (chat).
+     * Only instructions that touch thread-safe state qualify: sending messages
+     * to one player, script variables, locals and cancelling the event.
+     * Anything that changes the world or an entity must run on the main thread.
+     */
+    public boolean isAsyncSafe() {
+        return false;
+    }
+
+    /**
+     * @return true if every instruction of the block is {@link #isAsyncSafe() async-safe}
+     */
+    public static boolean allAsyncSafe(Instruction[] block) {
+        for (Instruction instruction : block) {
+            if (!instruction.isAsyncSafe()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if the instruction is, or contains, batalkan event
+     */
+    public boolean cancelsEvent() {
+        return false;
+    }
+
+    /**
+     * @return true if any instruction of the block {@link #cancelsEvent() cancels the event}
+     */
+    public static boolean anyCancelsEvent(Instruction[] block) {
+        for (Instruction instruction : block) {
+            if (instruction.cancelsEvent()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs a block of instructions in order
+     * @return false if a berhenti was reached inside the block
+     */
+    public static boolean runAll(Instruction[] block, ExecutionContext context) {
+        for (Instruction instruction : block) {
+            if (!instruction.execute(context)) return false;
+        }
+        return true;
+    }
+
+    protected Player getPlayer(ExecutionContext context) {
+        return context.getPlayer();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{line=" + lineNumber + "}";
+    }
+}
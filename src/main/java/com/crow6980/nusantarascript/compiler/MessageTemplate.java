@@ -0,0 +1,396 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import com.crow6980.nusantarascript.manager.VariableManager;
+import com.crow6980.nusantarascript.manager.VariableRef;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pre-split message text used by kirim, broadcast, kick and setel.
+ *
+ * The raw script string is cut once at load time into literal segments and
+ * typed holes: the player name (%player% or %pemain%), a context value ({arg1},
+ * {message}, resolved to an {@link ExecutionContext.Key}), a global variable,
+ * a per-player variable ({coins.%player%}) and a local slot ({_local}). Color
+ * codes in the literal parts are translated during compilation, so rendering
+ * is a single pass into a StringBuilder sized from the literal lengths,
+ * without any replace or regex work.
+ *
+ * Messages that are sent (kirim, broadcast, kick) also have a component form:
+ * a template without holes is deserialized once into an immutable
+ * {@link Component}, and one with holes keeps its literal parts as pre-built
+ * styled children, so only the hole values become new components. A hole
+ * value with color codes of its own (a variable set to "&aHijau") makes that
+ * send deserialize the whole rendered text instead, so the codes still apply.
+ *
+ * @author crow6980
+ */
+public final class MessageTemplate {
+
+    /** Expected rendered length of one hole, for sizing the builder */
+    private static final int HOLE_ESTIMATE = 16;
+
+    /** Stands in for a hole while the literal parts are deserialized (a private use character) */
+    private static final char HOLE_MARK = '\uE000';
+
+    /** § codes including §x§r§r§g§g§b§b hex colors, as Bukkit reads them in plain string messages */
+    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.builder()
+            .character('§')
+            .hexColors()
+            .useUnusualXRepeatedCharacterHexFormat()
+            .build();
+
+    private final String source;
+    private final Segment[] segments;
+    private final int capacity;
+
+    // Component form: the whole message without holes, otherwise parts of Component / StyledHole
+    // (null parts: the literal text has a HOLE_MARK of its own, so it is deserialized on every send)
+    private final Component constant;
+    private final Object[] parts;
+
+    private MessageTemplate(String source, Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment instanceof Literal literal ? literal.text.length() : HOLE_ESTIMATE;
+        }
+        this.capacity = size;
+
+        if (isConstant()) {
+            this.constant = LEGACY.deserialize(render(null));
+            this.parts = null;
+        } else {
+            this.constant = null;
+            this.parts = buildParts();
+        }
+    }
+
+    /**
+     * Splits a raw script string into template segments
+     *
+     * @param source The message as written in the script (may be null)
+     * @param variableManager Store used to resolve {variable} holes
+     */
+    public static MessageTemplate compile(String source, VariableManager variableManager) {
+        return compile(source, variableManager, null);
+    }
+
+    /**
+     * Splits a raw script string into template segments
+     *
+     * @param source The message as written in the script (may be null)
+     * @param variableManager Store used to resolve {variable} holes
+     * @param locals Slot index of each {_local} name, or null outside a handler or command
+     */
+    public static MessageTemplate compile(String source, VariableManager variableManager, ToIntFunction<String> locals) {
+        if (source == null || source.isEmpty()) {
+            return new MessageTemplate("", new Segment[0]);
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            if (source.startsWith("%player%", i) || source.startsWith("%pemain%", i)) {
+                flushLiteral(literal, segments);
+                segments.add(new PlayerName(source.substring(i, i + 8)));
+                i += 8;
+                continue;
+            }
+            char c = source.charAt(i);
+            if (c == '{') {
+                int end = source.indexOf('}', i + 1);
+                if (end > i + 1) {
+                    flushLiteral(literal, segments);
+                    segments.add(hole(source.substring(i + 1, end), variableManager, locals));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c == '&' ? '§' : c);
+            i++;
+        }
+        flushLiteral(literal, segments);
+        return new MessageTemplate(source, segments.toArray(new Segment[0]));
+    }
+
+    /**
+     * Picks the hole type of a {name} placeholder
+     */
+    private static Segment hole(String name, VariableManager variableManager, ToIntFunction<String> locals) {
+        if (locals != null && ExecutionContext.isLocalName(name) && name.indexOf('%') < 0) {
+            return new LocalHole(locals.applyAsInt(name));
+        }
+        ExecutionContext.Key key = ExecutionContext.Key.of(name);
+        if (key != null) return new ContextHole(key, name, variableManager);
+        VariableRef variable = VariableRef.of(name);
+        return variable.isPlayerScoped()
+                ? new PlayerVariableHole(variable, variableManager)
+                : new GlobalHole(variable.getKey(), variableManager);
+    }
+
+    private static void flushLiteral(StringBuilder literal, List<Segment> segments) {
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Renders the template against the current execution context
+     */
+    public String render(ExecutionContext context) {
+        if (segments.length == 1 && segments[0] instanceof Literal literal) {
+            return literal.text;
+        }
+        StringBuilder sb = new StringBuilder(capacity);
+        for (Segment segment : segments) {
+            segment.appendTo(sb, context);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Renders the template as a chat component.
+     * Without holes the same immutable component is returned every time.
+     */
+    public Component component(ExecutionContext context) {
+        if (constant != null) return constant;
+        if (parts == null) return LEGACY.deserialize(render(context));
+
+        TextBuilder builder = new TextBuilder();
+        StringBuilder sb = new StringBuilder(HOLE_ESTIMATE);
+        for (Object part : parts) {
+            if (part instanceof StyledHole hole) {
+                sb.setLength(0);
+                hole.segment.appendTo(sb, context);
+                // Codes in the value restyle everything after it: let the serializer do the whole text
+                if (sb.indexOf("§") >= 0) return LEGACY.deserialize(render(context));
+                if (sb.length() > 0) builder.add(Component.text(sb.toString(), hole.style));
+            } else {
+                builder.add((Component) part);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Deserializes the literal parts with a mark in place of every hole, then cuts the
+     * result at the marks; each hole gets the style the serializer gave its mark
+     */
+    private Object[] buildParts() {
+        StringBuilder marked = new StringBuilder(capacity);
+        List<Segment> holes = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment instanceof Literal literal) {
+                if (literal.text.indexOf(HOLE_MARK) >= 0) return null;
+                marked.append(literal.text);
+            } else {
+                marked.append(HOLE_MARK);
+                holes.add(segment);
+            }
+        }
+        List<Object> built = new ArrayList<>(segments.length + 4);
+        collectParts(LEGACY.deserialize(marked.toString()), Style.empty(), holes.iterator(), built);
+        return built.toArray();
+    }
+
+    private static void collectParts(Component node, Style inherited, Iterator<Segment> holes, List<Object> built) {
+        Style style = inherited.merge(node.style());
+        if (node instanceof TextComponent text) {
+            String content = text.content();
+            int from = 0;
+            for (int mark = content.indexOf(HOLE_MARK); mark >= 0; mark = content.indexOf(HOLE_MARK, from)) {
+                if (mark > from) built.add(Component.text(content.substring(from, mark), style));
+                built.add(new StyledHole(holes.next(), style));
+                from = mark + 1;
+            }
+            if (from < content.length()) built.add(Component.text(content.substring(from), style));
+        }
+        for (Component child : node.children()) {
+            collectParts(child, style, holes, built);
+        }
+    }
+
+    /**
+     * @return true if the template has no placeholders at all
+     */
+    public boolean isConstant() {
+        for (Segment segment : segments) {
+            if (!(segment instanceof Literal)) return false;
+        }
+        return true;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTemplate{'" + source + "', segments=" + segments.length + "}";
+    }
+
+    // --- SEGMENTS ---
+
+    /**
+     * A hole with the style of the text before it
+     */
+    private static final class StyledHole {
+        private final Segment segment;
+        private final Style style;
+
+        StyledHole(Segment segment, Style style) {
+            this.segment = segment;
+            this.style = style;
+        }
+    }
+
+    /**
+     * Collects child components and joins them under an unstyled root
+     */
+    private static final class TextBuilder {
+        private Component single;
+        private TextComponent.Builder builder;
+
+        void add(Component child) {
+            if (builder != null) {
+                builder.append(child);
+            } else if (single == null) {
+                single = child;
+            } else {
+                builder = Component.text().append(single).append(child);
+            }
+        }
+
+        Component build() {
+            if (builder != null) return builder.build();
+            return single != null ? single : Component.empty();
+        }
+    }
+
+    private abstract static class Segment {
+        abstract void appendTo(StringBuilder sb, ExecutionContext context);
+    }
+
+    private static final class Literal extends Segment {
+        private final String text;
+        Literal(String text) { this.text = text; }
+        @Override
+        void appendTo(StringBuilder sb, ExecutionContext context) {
+            sb.append(text);
+        }
+    }
+
+    /**
+     * %player% / %pemain%: the name of the running player
+     */
+    private static final class PlayerName extends Segment {
+        private final String placeholder; // shown as written when there is no player
+
+        PlayerName(String placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, ExecutionContext context) {
+            Player player = context.getPlayer();
+            sb.append(player != null ? player.getName() : placeholder);
+        }
+    }
+
+    /**
+     * {arg1}, {message}, ... hole: the context value, or the script variable of
+     * the same name when the running event does not provide it
+     */
+    private static final class ContextHole extends Segment {
+        private final ExecutionContext.Key key;
+        private final String name;
+        private final VariableManager variableManager;
+
+        ContextHole(ExecutionContext.Key key, String name, VariableManager variableManager) {
+            this.key = key;
+            this.name = name;
+            this.variableManager = variableManager;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, ExecutionContext context) {
+            if (!key.appendTo(sb, context) && !variableManager.appendTo(sb, null, name)) sb.append('0');
+        }
+    }
+
+    /**
+     * {name} hole: a global script variable
+     */
+    private static final class GlobalHole extends Segment {
+        private final String key;
+        private final VariableManager variableManager;
+
+        GlobalHole(String key, VariableManager variableManager) {
+            this.key = key;
+            this.variableManager = variableManager;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, ExecutionContext context) {
+            if (!variableManager.appendTo(sb, null, key)) sb.append('0');
+        }
+    }
+
+    /**
+     * {name.%player%} hole: a variable of the running player
+     */
+    private static final class PlayerVariableHole extends Segment {
+        private final VariableRef variable;
+        private final VariableManager variableManager;
+
+        PlayerVariableHole(VariableRef variable, VariableManager variableManager) {
+            this.variable = variable;
+            this.variableManager = variableManager;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, ExecutionContext context) {
+            if (!variable.appendTo(sb, variableManager, context.getPlayer())) sb.append('0');
+        }
+    }
+
+    /**
+     * {_name} hole: a local variable slot of the running handler or command
+     */
+    private static final class LocalHole extends Segment {
+        private final int slot;
+
+        LocalHole(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, ExecutionContext context) {
+            if (context.hasLocalNumber(slot)) VariableManager.appendNumber(sb, context.getLocalNumber(slot));
+            else appendValue(sb, context.getLocal(slot));
+        }
+    }
+
+    /**
+     * Appends a local value; unset locals render as 0, whole numbers without ".0"
+     */
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) sb.append('0');
+        else if (value instanceof String text) sb.append(text);
+        else if (value instanceof Double number) VariableManager.appendNumber(sb, number);
+        else sb.append(value);
+    }
+}
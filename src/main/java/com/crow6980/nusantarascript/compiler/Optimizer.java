@@ -0,0 +1,180 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Optimization pass over compiled instruction trees, run by {@link ScriptCompiler}
+ * before a block is handed to the execution backend.
+ *
+ * Rewrites, in one bottom-up walk:
+ * - jika blocks whose condition compares two literals (or could not be resolved) are replaced
+ *   by the branch that always runs
+ * - jika blocks with an empty body and an empty jika tidak are removed
+ *   (conditions only read state, so skipping them changes nothing)
+ * - consecutive kirim ... ke pemain lines become one {@link Instruction.SendMessages}
+ * - everything after berhenti in the same block is dropped
+ * - else-if chains of at least {@link #MIN_SWITCH_CASES} equality checks on the same
+ *   subject become a jump table ({@link Instruction.MaterialSwitch} or {@link Instruction.TextSwitch})
+ *
+ * @author crow6980
+ */
+final class Optimizer {
+
+    static final int MIN_SWITCH_CASES = 3;
+
+    private static final Instruction[] EMPTY = new Instruction[0];
+
+    // Literals never read the context, so one empty context serves every constant compare
+    private static final ExecutionContext NO_CONTEXT = new ExecutionContext(null, null);
+
+    // Text cases are told apart the way TextSwitch looks them up: ignoring case
+    private static final Comparator<Object> TEXT_CASE_ORDER =
+            (a, b) -> String.CASE_INSENSITIVE_ORDER.compare((String) a, (String) b);
+
+    private Optimizer() {}
+
+    /**
+     * Returns an optimized copy of the block. The input is not modified.
+     */
+    static Instruction[] optimize(Instruction[] block) {
+        List<Instruction> out = new ArrayList<>(block.length);
+        for (Instruction instruction : block) {
+            if (!emit(out, instruction)) break;
+        }
+        return out.isEmpty() ? EMPTY : out.toArray(EMPTY);
+    }
+
+    /**
+     * Appends an optimized instruction to the block
+     * @return false if the block ends here (berhenti was reached)
+     */
+    private static boolean emit(List<Instruction> out, Instruction instruction) {
+        if (instruction instanceof Instruction.Branch branch) {
+            return emitBranch(out, branch);
+        }
+
+        if (instruction instanceof Instruction.SendMessage send && !out.isEmpty()) {
+            Instruction last = out.get(out.size() - 1);
+            if (last instanceof Instruction.SendMessage previous) {
+                out.set(out.size() - 1, new Instruction.SendMessages(
+                        new MessageTemplate[]{previous.getMessage(), send.getMessage()}, previous.getLineNumber()));
+                return true;
+            }
+            if (last instanceof Instruction.SendMessages previous) {
+                MessageTemplate[] messages = Arrays.copyOf(previous.getMessages(), previous.getMessages().length + 1);
+                messages[messages.length - 1] = send.getMessage();
+                out.set(out.size() - 1, new Instruction.SendMessages(messages, previous.getLineNumber()));
+                return true;
+            }
+        }
+
+        out.add(instruction);
+        return !(instruction instanceof Instruction.Stop);
+    }
+
+    private static boolean emitBranch(List<Instruction> out, Instruction.Branch branch) {
+        Condition condition = branch.getCondition();
+
+        // Constant condition: inline the branch that always runs
+        if (condition instanceof Condition.Constant
+                || condition instanceof Condition.ExpressionCondition expression && expression.isConstant()) {
+            Instruction[] taken = condition.evaluate(NO_CONTEXT) ? branch.getThen() : branch.getOtherwise();
+            for (Instruction instruction : taken) {
+                if (!emit(out, instruction)) return false;
+            }
+            return true;
+        }
+
+        Instruction switched = toSwitch(branch);
+        if (switched != null) {
+            out.add(switched);
+            return true;
+        }
+
+        Instruction[] then = optimize(branch.getThen());
+        Instruction[] otherwise = optimize(branch.getOtherwise());
+        if (then.length == 0 && otherwise.length == 0) {
+            return true;
+        }
+        out.add(new Instruction.Branch(condition, then, otherwise, branch.getLineNumber()));
+        return true;
+    }
+
+    // ==================== JUMP TABLES ====================
+
+    /**
+     * Turns an else-if chain into a jump table, or returns null if the chain
+     * is too short or does not compare one subject against literals
+     */
+    private static Instruction toSwitch(Instruction.Branch head) {
+        Object subject = subjectOf(head.getCondition());
+        if (subject == null) return null;
+
+        // Earlier cases win, exactly like the nested chain
+        Map<Object, Instruction[]> cases = subject == Material.class ? new LinkedHashMap<>() : new TreeMap<>(TEXT_CASE_ORDER);
+        Instruction.Branch current = head;
+        Instruction[] otherwise;
+        while (true) {
+            cases.putIfAbsent(keyOf(current.getCondition()), current.getThen());
+            otherwise = current.getOtherwise();
+            if (otherwise.length == 1 && otherwise[0] instanceof Instruction.Branch next
+                    && subject.equals(subjectOf(next.getCondition()))) {
+                current = next;
+            } else {
+                break;
+            }
+        }
+        if (cases.size() < MIN_SWITCH_CASES) return null;
+
+        Instruction[] fallback = optimize(otherwise);
+        if (subject == Material.class) {
+            Map<Material, Instruction[]> materials = new EnumMap<>(Material.class);
+            cases.forEach((key, body) -> materials.put((Material) key, optimize(body)));
+            return new Instruction.MaterialSwitch(materials, fallback, head.getLineNumber());
+        }
+
+        Map<String, Instruction[]> texts = new LinkedHashMap<>();
+        cases.forEach((key, body) -> texts.put((String) key, optimize(body)));
+        return new Instruction.TextSwitch((Condition.Operand) subject, texts, fallback, head.getLineNumber());
+    }
+
+    /**
+     * What a condition switches on: Material.class for blok adalah, the operand
+     * for {x} == "text", or null if it cannot be part of a jump table
+     */
+    private static Object subjectOf(Condition condition) {
+        if (condition instanceof Condition.BlockTypeCondition) {
+            return Material.class;
+        }
+        if (condition instanceof Condition.ExpressionCondition expression
+                && expression.isValid()
+                && expression.getOperator() == Condition.Operator.EQUALS
+                && (expression.getLeft() instanceof Condition.ContextSlot
+                    || expression.getLeft() instanceof Condition.VariableOperand
+                    || expression.getLeft() instanceof Condition.LocalRef)
+                && expression.getRight() instanceof Condition.StringLiteral literal
+                && Double.isNaN(literal.number(NO_CONTEXT))) {
+            // Numeric literals compare as numbers, so they are left to the normal path
+            return expression.getLeft();
+        }
+        return null;
+    }
+
+    private static Object keyOf(Condition condition) {
+        if (condition instanceof Condition.BlockTypeCondition block) {
+            return block.getMaterial();
+        }
+        return ((Condition.StringLiteral) ((Condition.ExpressionCondition) condition).getRight()).getValue();
+    }
+}
@@ -0,0 +1,21 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+
+/**
+ * Executable body of a compiled handler or command.
+ *
+ * The default implementation walks the {@link Instruction} tree; the
+ * hidden-class backend ({@link HiddenClassBackend}) provides one
+ * specialised class per body instead.
+ *
+ * @author crow6980
+ */
+@FunctionalInterface
+public interface ScriptBody {
+
+    /**
+     * @return false if the body was aborted by berhenti
+     */
+    boolean run(ExecutionContext context);
+}
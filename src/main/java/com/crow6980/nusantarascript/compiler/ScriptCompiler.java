@@ -0,0 +1,371 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.command.ArgumentSchema;
+import com.crow6980.nusantarascript.command.CustomCommand;
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.condition.ConditionalBlock;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import com.crow6980.nusantarascript.manager.VariableManager;
+import com.crow6980.nusantarascript.manager.VariableRef;
+import com.crow6980.nusantarascript.script.Action;
+import com.crow6980.nusantarascript.script.EventHandler;
+import com.crow6980.nusantarascript.script.Script;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.Sound;
+import org.bukkit.potion.PotionEffectType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compile stage that runs after {@link com.crow6980.nusantarascript.parser.ScriptParser}.
+ *
+ * Turns every EventHandler and CustomCommand of a parsed script into an
+ * immutable tree of {@link Instruction}s with typed operands:
+ * - numbers are parsed once
+ * - materials, sounds and potion effects are resolved once; items become ItemStack templates
+ * - worlds become {@link WorldRef}s, bound later by {@link WorldLinker}
+ * - messages are pre-split into {@link MessageTemplate}s
+ * - local variables ({_name}) get a fixed slot per handler or command
+ * - command argument declarations become a typed ArgumentSchema
+ * - every handler is classified as async-safe or main-thread-only
+ *
+ * Every block then goes through the {@link Optimizer} (constant folding,
+ * dead code removal, jump tables for long else-if chains).
+ *
+ * Actions whose operands cannot be resolved are reported once, as warnings
+ * on the {@link CompiledScript}, instead of failing silently on every event.
+ * The compiler does not log by itself, so scripts can be compiled in
+ * parallel and still be reported in a stable order.
+ *
+ * The execution backend (execution.backend in config.yml) decides how the
+ * resulting trees run: "interpreter" walks them directly, "hidden-class"
+ * hands them to {@link HiddenClassBackend}.
+ *
+ * @author crow6980
+ */
+public class ScriptCompiler {
+
+    private static final Instruction[] EMPTY = new Instruction[0];
+
+    private final NusantaraScript plugin;
+    private final VariableManager variableManager;
+    private final WorldLinker worldLinker;
+    private HiddenClassBackend hiddenClassBackend;
+
+    public ScriptCompiler(NusantaraScript plugin) {
+        this.plugin = plugin;
+        this.variableManager = plugin.getVariableManager();
+        this.worldLinker = plugin.getWorldLinker();
+    }
+
+    /**
+     * Re-reads the execution backend from config.yml.
+     * Called before every full load so /nusantara reload picks up changes.
+     */
+    public void reloadSettings() {
+        String backend = plugin.getConfig().getString("execution.backend", "interpreter");
+        hiddenClassBackend = null;
+        if (backend.equalsIgnoreCase("hidden-class")) {
+            try {
+                hiddenClassBackend = HiddenClassBackend.create();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Backend hidden-class tidak tersedia, memakai interpreter: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compiles all handlers and commands of a parsed script
+     */
+    public CompiledScript compile(Script script) {
+        Unit unit = new Unit(script.getFilename());
+
+        List<CompiledHandler> handlers = new ArrayList<>();
+        for (EventHandler handler : script.getEventHandlers()) {
+            handlers.add(compileHandler(unit, handler));
+        }
+
+        List<CompiledCommand> commands = new ArrayList<>();
+        for (CustomCommand command : script.getCustomCommands()) {
+            unit.locals = new Locals();
+            Instruction[] instructions = Optimizer.optimize(compileActions(unit, command.getActions()));
+            commands.add(new CompiledCommand(command, compileSchema(unit, command), unit.name,
+                    instructions, createBody(unit, instructions), unit.locals.count()));
+        }
+
+        return new CompiledScript(script.getFilename(), handlers, commands, unit.warnings, unit.worldUses);
+    }
+
+    private CompiledHandler compileHandler(Unit unit, EventHandler handler) {
+        // EventHandler keeps top-level actions and jika blocks in separate lists,
+        // so merge them back into source order by line number
+        unit.locals = new Locals();
+        List<Instruction> body = new ArrayList<>();
+        for (Action action : handler.getActions()) {
+            Instruction instruction = compileAction(unit, action);
+            if (instruction != null) body.add(instruction);
+        }
+        for (ConditionalBlock block : handler.getConditionalBlocks()) {
+            body.add(compileBlock(unit, block));
+        }
+        body.sort(Comparator.comparingInt(Instruction::getLineNumber));
+
+        Instruction[] instructions = Optimizer.optimize(body.toArray(EMPTY));
+        return new CompiledHandler(handler.getEventType(), unit.name, handler.getLineNumber(),
+                instructions, createBody(unit, instructions), unit.locals.count(),
+                Instruction.allAsyncSafe(instructions), handler.getCooldownMillis());
+    }
+
+    /**
+     * Creates the executable body for an instruction block using the configured backend
+     */
+    private ScriptBody createBody(Unit unit, Instruction[] instructions) {
+        if (hiddenClassBackend != null) {
+            try {
+                return hiddenClassBackend.define(instructions);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                unit.warnings.add("[" + unit.name + "] Gagal membuat hidden class, memakai interpreter: " + e.getMessage());
+            }
+        }
+        return context -> Instruction.runAll(instructions, context);
+    }
+
+    private Instruction[] compileActions(Unit unit, List<Action> actions) {
+        List<Instruction> result = new ArrayList<>(actions.size());
+        for (Action action : actions) {
+            Instruction instruction = compileAction(unit, action);
+            if (instruction != null) result.add(instruction);
+        }
+        return result.isEmpty() ? EMPTY : result.toArray(EMPTY);
+    }
+
+    private Instruction compileBlock(Unit unit, ConditionalBlock block) {
+        return new Instruction.Branch(compileCondition(unit, block.getCondition()),
+                compileActions(unit, block.getActions()),
+                compileActions(unit, block.getElseActions()),
+                block.getLineNumber());
+    }
+
+    /**
+     * Binds the locals of a jika condition. A material the server does not know is
+     * reported and makes the condition always false, so jika tidak still runs.
+     */
+    private Condition compileCondition(Unit unit, Condition condition) {
+        String unknown = null;
+        if (condition instanceof Condition.BlockTypeCondition block && block.getMaterial() == null) {
+            unknown = block.getMaterialName();
+        } else if (condition instanceof Condition.HoldingItemCondition holding && holding.getMaterial() == null) {
+            unknown = holding.getMaterialName();
+        }
+        if (unknown != null) {
+            unit.warnings.add("[" + unit.name + ":" + condition.getLineNumber() + "] Material tidak dikenal: "
+                    + unknown + " (jika dianggap salah)");
+            return Condition.Constant.FALSE;
+        }
+        return condition.withLocals(unit.locals::slot);
+    }
+
+    /**
+     * Lowers a single action, or returns null if it cannot be executed
+     */
+    private Instruction compileAction(Unit unit, Action action) {
+        int line = action.getLineNumber();
+        String param = action.getParameter();
+
+        return switch (action.getActionType()) {
+            case SEND_MESSAGE -> new Instruction.SendMessage(template(unit, param), line);
+            case BROADCAST -> new Instruction.Broadcast(template(unit, param), line);
+            case KICK_PLAYER -> new Instruction.KickPlayer(template(unit, param), line);
+            case CANCEL_EVENT -> new Instruction.CancelEvent(plugin, line);
+            case HEAL_PLAYER -> new Instruction.HealPlayer(line);
+            case FEED_PLAYER -> new Instruction.FeedPlayer(line);
+            case SET_VARIABLE -> compileSetVariable(unit, action);
+            case ADD_VARIABLE -> compileModifyVariable(unit, action, 1);
+            case SUBTRACT_VARIABLE -> compileModifyVariable(unit, action, -1);
+            case DELETE_VARIABLE -> compileDeleteVariable(unit, action);
+            case GIVE_ITEM -> compileGiveItem(unit, action);
+            case TELEPORT -> compileTeleport(unit, action);
+            case PLAY_SOUND -> compilePlaySound(unit, action);
+            case GIVE_EFFECT -> compileGiveEffect(unit, action);
+            case NESTED_CONDITION -> action.getNestedBlock() != null ? compileBlock(unit, action.getNestedBlock()) : null;
+            case STOP -> new Instruction.Stop(line);
+        };
+    }
+
+    // ==================== ACTION LOWERING ====================
+
+    private Instruction compileSetVariable(Unit unit, Action action) {
+        String varName = action.getParameter() != null ? action.getParameter() : "";
+        String value = action.getAdditionalParams().length > 0 ? action.getAdditionalParams()[0] : "";
+        if (isLocal(varName)) {
+            return new Instruction.SetLocal(unit.locals.slot(varName), template(unit, value), action.getLineNumber());
+        }
+        return new Instruction.SetVariable(variableManager, VariableRef.of(varName),
+                template(unit, value), action.getLineNumber());
+    }
+
+    private Instruction compileModifyVariable(Unit unit, Action action, int mult) {
+        String varName = action.getParameter() != null ? action.getParameter() : "";
+        String amount = action.getAdditionalParams().length > 0 ? action.getAdditionalParams()[0] : "1";
+        try {
+            double value = Double.parseDouble(amount) * mult;
+            if (isLocal(varName)) {
+                return new Instruction.ModifyLocal(unit.locals.slot(varName), value, action.getLineNumber());
+            }
+            return new Instruction.ModifyVariable(variableManager, VariableRef.of(varName),
+                    value, action.getLineNumber());
+        } catch (NumberFormatException e) {
+            warn(unit, action, "Angka tidak valid: " + amount);
+            return null;
+        }
+    }
+
+    private Instruction compileDeleteVariable(Unit unit, Action action) {
+        String varName = action.getParameter() != null ? action.getParameter() : "";
+        if (isLocal(varName)) {
+            return new Instruction.DeleteLocal(unit.locals.slot(varName), action.getLineNumber());
+        }
+        return new Instruction.DeleteVariable(variableManager, VariableRef.of(varName),
+                action.getLineNumber());
+    }
+
+    private Instruction compileGiveItem(Unit unit, Action action) {
+        Material material = action.getParameter() != null ? Material.matchMaterial(action.getParameter()) : null;
+        if (material == null || !material.isItem()) {
+            warn(unit, action, "Material tidak dikenal: " + action.getParameter());
+            return null;
+        }
+        String amount = action.getAdditionalParams().length > 0 ? action.getAdditionalParams()[0] : "1";
+        try {
+            int count = Integer.parseInt(amount);
+            if (count <= 0) {
+                warn(unit, action, "Jumlah item tidak valid: " + amount);
+                return null;
+            }
+            return new Instruction.GiveItem(material, count, action.getLineNumber());
+        } catch (NumberFormatException e) {
+            warn(unit, action, "Jumlah item tidak valid: " + amount);
+            return null;
+        }
+    }
+
+    private Instruction compileTeleport(Unit unit, Action action) {
+        String[] parts = action.getParameter() != null ? action.getParameter().split(",") : new String[0];
+        if (parts.length < 4) {
+            warn(unit, action, "Format teleport salah: " + action.getParameter());
+            return null;
+        }
+        try {
+            WorldRef world = worldLinker.ref(parts[0].trim());
+            unit.worldUses.add(new WorldRef.Use(world, action.getLineNumber()));
+            return new Instruction.Teleport(world,
+                    Double.parseDouble(parts[1].trim()),
+                    Double.parseDouble(parts[2].trim()),
+                    Double.parseDouble(parts[3].trim()),
+                    action.getLineNumber());
+        } catch (NumberFormatException e) {
+            warn(unit, action, "Format teleport salah: " + action.getParameter());
+            return null;
+        }
+    }
+
+    private Instruction compilePlaySound(Unit unit, Action action) {
+        NamespacedKey key = action.getParameter() != null
+                ? NamespacedKey.fromString(action.getParameter().trim().toLowerCase())
+                : null;
+        Sound sound = key != null ? Registry.SOUND_EVENT.get(key) : null;
+        if (sound == null) {
+            warn(unit, action, "Suara tidak dikenal: " + action.getParameter());
+            return null;
+        }
+        return new Instruction.PlaySound(sound, action.getLineNumber());
+    }
+
+    private Instruction compileGiveEffect(Unit unit, Action action) {
+        String[] parts = action.getParameter() != null ? action.getParameter().split(",") : new String[0];
+        if (parts.length < 3) {
+            warn(unit, action, "Format efek salah: " + action.getParameter());
+            return null;
+        }
+        NamespacedKey key = NamespacedKey.fromString(parts[0].trim().toLowerCase());
+        PotionEffectType type = key != null ? Registry.EFFECT.get(key) : null;
+        if (type == null) {
+            warn(unit, action, "Efek tidak dikenal: " + parts[0].trim());
+            return null;
+        }
+        try {
+            int durationTicks = Integer.parseInt(parts[1].trim()) * 20;
+            int amplifier = Integer.parseInt(parts[2].trim());
+            return new Instruction.GiveEffect(type, durationTicks, amplifier, action.getLineNumber());
+        } catch (NumberFormatException e) {
+            warn(unit, action, "Format efek salah: " + action.getParameter());
+            return null;
+        }
+    }
+
+    // ==================== UTILITIES ====================
+
+    private MessageTemplate template(Unit unit, String text) {
+        return MessageTemplate.compile(text, variableManager, unit.locals::slot);
+    }
+
+    /**
+     * {_name} without a player placeholder: a local of the handler or command
+     */
+    private static boolean isLocal(String varName) {
+        return ExecutionContext.isLocalName(varName) && varName.indexOf('%') < 0;
+    }
+
+    private ArgumentSchema compileSchema(Unit unit, CustomCommand command) {
+        List<String> problems = new ArrayList<>();
+        ArgumentSchema schema = ArgumentSchema.compile(command.getArguments(), problems);
+        for (String problem : problems) {
+            unit.warnings.add("[" + unit.name + ":" + command.getLineNumber() + "] /" + command.getName() + ": " + problem);
+        }
+        return schema;
+    }
+
+    private void warn(Unit unit, Action action, String message) {
+        unit.warnings.add("[" + unit.name + ":" + action.getLineNumber() + "] " + message
+                + " (" + action.getActionType() + " dilewati)");
+    }
+
+    /**
+     * Per-file compile state
+     */
+    private static class Unit {
+        final String name;
+        final List<String> warnings = new ArrayList<>();
+        final List<WorldRef.Use> worldUses = new ArrayList<>();
+        Locals locals = new Locals(); // of the handler or command being compiled
+        Unit(String name) { this.name = name; }
+    }
+
+    /**
+     * Slot numbers of the {_name} locals of one handler or command, in first-use order
+     */
+    private static class Locals {
+        private final Map<String, Integer> slots = new HashMap<>();
+
+        int slot(String name) {
+            Integer slot = slots.get(name);
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(name, slot);
+            }
+            return slot;
+        }
+
+        int count() {
+            return slots.size();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.crow6980.nusantarascript.compiler;
+
+import com.crow6980.nusantarascript.NusantaraScript;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Link stage for world references.
+ *
+ * The compiler asks for a {@link WorldRef} per world name (safe from loader
+ * threads). When a script is registered on the main thread, {@link #link}
+ * binds its references to the loaded worlds and reports names that are not
+ * loaded with file and line. Afterwards this listener re-links references
+ * whenever a world is loaded or unloaded.
+ *
+ * @author crow6980
+ */
+public class WorldLinker implements Listener {
+
+    private final NusantaraScript plugin;
+
+    // lower-case world name -> shared reference (Bukkit world names are case-insensitive)
+    private final Map<String, WorldRef> refs = new ConcurrentHashMap<>();
+
+    public WorldLinker(NusantaraScript plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets the shared reference for a world name. Does not look the world up.
+     */
+    public WorldRef ref(String worldName) {
+        return refs.computeIfAbsent(worldName.toLowerCase(Locale.ROOT), WorldRef::new);
+    }
+
+    /**
+     * Binds the world references of a compiled script. Must run on the main thread.
+     */
+    public void link(CompiledScript script) {
+        for (WorldRef.Use use : script.getWorldUses()) {
+            WorldRef ref = use.getRef();
+            World world = Bukkit.getWorld(ref.getName());
+            ref.link(world);
+            if (world == null) {
+                plugin.getLogger().warning("[" + script.getFilename() + ":" + use.getLineNumber() + "] Dunia belum dimuat: "
+                        + ref.getName() + " (akan ditautkan saat dunia dimuat)");
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        WorldRef ref = refs.get(event.getWorld().getName().toLowerCase(Locale.ROOT));
+        if (ref != null) {
+            ref.link(event.getWorld());
+            if (plugin.isDebugEnabled()) {
+                plugin.getLogger().info("Dunia ditautkan: " + event.getWorld().getName());
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        if (event.isCancelled()) return;
+        WorldRef ref = refs.get(event.getWorld().getName().toLowerCase(Locale.ROOT));
+        if (ref != null) {
+            ref.link(null);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.crow6980.nusantarascript.compiler;
+
+import org.bukkit.World;
+
+/**
+ * Late-bound reference to a world by name.
+ *
+ * Instructions keep a WorldRef instead of calling Bukkit.getWorld on every run.
+ * {@link WorldLinker} fills it in when scripts are registered and keeps it
+ * current when worlds are loaded or unloaded, so a script may name a world
+ * that only exists later (for example one loaded by a multiworld plugin).
+ *
+ * @author crow6980
+ */
+public final class WorldRef {
+
+    private final String name;
+    private volatile World world;
+
+    WorldRef(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The linked world, or null while it is not loaded
+     */
+    public World get() {
+        return world;
+    }
+
+    void link(World world) {
+        this.world = world;
+    }
+
+    /**
+     * A place in a script that uses a world, for load-time reporting
+     */
+    public static final class Use {
+        private final WorldRef ref;
+        private final int lineNumber;
+
+        public Use(WorldRef ref, int lineNumber) {
+            this.ref = ref;
+            this.lineNumber = lineNumber;
+        }
+
+        public WorldRef getRef() { return ref; }
+        public int getLineNumber() { return lineNumber; }
+    }
+}
@@ -4,8 +4,13 @@ import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.manager.VariableManager;
-import java.util.Map;
+import com.crow6980.nusantarascript.manager.VariableRef;
+import com.crow6980.nusantarascript.parser.ScriptLexer;
+import com.crow6980.nusantarascript.parser.ScriptLexer.Token;
+import java.util.List;
+import java.util.function.ToIntFunction;
 
 /**
  * PHASE 2 - STEP 2: Condition Interface
@@ -14,50 +19,393 @@ import java.util.Map;
 public abstract class Condition {
 
     /**
-     * NEW: Condition for expressions like {arg1} == "emas" or {arg2} > 10
+     * NEW: Condition for expressions like {arg1} == "emas", {arg2} > 10,
+     * {skor.%pemain%} lebih dari 10 or {message} berisi "halo"
+     *
+     * The expression is split once, when the script loads, into two operands
+     * and an {@link Operator}. Evaluating it only reads the operands and does
+     * a primitive compare; nothing is re-parsed per event.
      */
     public static class ExpressionCondition extends Condition {
         private final String expression;
+        private final Operand left;
+        private final Operator operator;
+        private final Operand right;
 
         public ExpressionCondition(String expression, int lineNumber) {
             super(lineNumber);
             this.expression = expression;
+
+            List<Token> tokens = ScriptLexer.tokenize(expression);
+            int op = findOperator(tokens);
+            if (op > 0) {
+                this.operator = Operator.at(tokens, op);
+                this.left = Operand.of(expression, tokens, 0, op);
+                this.right = Operand.of(expression, tokens, op + Operator.width(tokens, op), tokenCount(tokens));
+            } else {
+                this.operator = null;
+                this.left = null;
+                this.right = null;
+            }
+        }
+
+        private ExpressionCondition(ExpressionCondition source, Operand left, Operand right) {
+            super(source.lineNumber);
+            this.expression = source.expression;
+            this.left = left;
+            this.operator = source.operator;
+            this.right = right;
+        }
+        public String getExpression() { return expression; }
+        public Operand getLeft() { return left; }
+        public Operator getOperator() { return operator; }
+        public Operand getRight() { return right; }
+
+        /** True if both sides are literals, so the result never changes */
+        public boolean isConstant() {
+            return isValid() && (left instanceof NumberLiteral || left instanceof StringLiteral)
+                    && (right instanceof NumberLiteral || right instanceof StringLiteral);
+        }
+
+        /** False if the expression has no operator or no operands and can never be true */
+        public boolean isValid() {
+            return operator != null && left != null && right != null;
         }
 
+        @Override public boolean isAsyncSafe() { return true; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
-            String processed = expression;
+        public boolean evaluate(ExecutionContext context) {
+            if (!isValid()) return false;
 
-            // Replace placeholders with values from context (like {arg1}, {player}, etc.)
-            for (Map.Entry<String, Object> entry : context.entrySet()) {
-                if (entry.getValue() != null) {
-                    processed = processed.replace("{" + entry.getKey() + "}", entry.getValue().toString());
+            if (operator == Operator.EQUALS || operator == Operator.NOT_EQUALS) {
+                boolean equal;
+                if (left instanceof NumberLiteral || right instanceof NumberLiteral) {
+                    equal = left.number(context) == right.number(context);
+                } else {
+                    String a = left.text(context);
+                    String b = right.text(context);
+                    equal = a != null && b != null && a.equalsIgnoreCase(b);
                 }
+                return equal == (operator == Operator.EQUALS);
             }
 
-            try {
-                // Handle Math: Greater Than
-                if (processed.contains(">")) {
-                    String[] parts = processed.split(">");
-                    return Double.parseDouble(parts[0].trim()) > Double.parseDouble(parts[1].trim());
-                } 
-                // Handle Math: Less Than
-                else if (processed.contains("<")) {
-                    String[] parts = processed.split("<");
-                    return Double.parseDouble(parts[0].trim()) < Double.parseDouble(parts[1].trim());
-                } 
-                // Handle Equality: ==
-                else if (processed.contains("==")) {
-                    String[] parts = processed.split("==");
-                    String left = parts[0].trim().replace("\"", "");
-                    String right = parts[1].trim().replace("\"", "");
-                    return left.equalsIgnoreCase(right);
-                }
-            } catch (Exception e) {
-                return false; // Return false if math parsing fails
+            if (operator == Operator.CONTAINS || operator == Operator.STARTS_WITH) {
+                String a = left.text(context);
+                String b = right.text(context);
+                if (a == null || b == null) return false;
+                return operator == Operator.CONTAINS
+                        ? containsIgnoreCase(a, b)
+                        : a.regionMatches(true, 0, b, 0, b.length());
+            }
+
+            // NaN (not a number) makes every ordered compare false
+            double a = left.number(context);
+            double b = right.number(context);
+            return switch (operator) {
+                case GREATER -> a > b;
+                case LESS -> a < b;
+                case GREATER_EQUAL -> a >= b;
+                case LESS_EQUAL -> a <= b;
+                default -> false;
+            };
+        }
+
+        @Override
+        public Condition withLocals(ToIntFunction<String> slots) {
+            if (!(left instanceof LocalRef) && !(right instanceof LocalRef)) return this;
+            return new ExpressionCondition(this, bind(left, slots), bind(right, slots));
+        }
+
+        private static Operand bind(Operand operand, ToIntFunction<String> slots) {
+            return operand instanceof LocalRef local ? new LocalRef(local.name, slots.applyAsInt(local.name)) : operand;
+        }
+
+        private static boolean containsIgnoreCase(String text, String part) {
+            for (int i = 0, last = text.length() - part.length(); i <= last; i++) {
+                if (text.regionMatches(true, i, part, 0, part.length())) return true;
             }
             return false;
         }
+
+        private static int findOperator(List<Token> tokens) {
+            for (int i = 0; i < tokens.size(); i++) {
+                if (Operator.at(tokens, i) != null) return i;
+            }
+            return -1;
+        }
+
+        /** Number of tokens before the trailing NEWLINE/EOF */
+        private static int tokenCount(List<Token> tokens) {
+            int n = tokens.size();
+            while (n > 0 && !isOperandToken(tokens.get(n - 1))) n--;
+            return n;
+        }
+
+        private static boolean isOperandToken(Token token) {
+            return switch (token.getType()) {
+                case WORD, STRING, VARIABLE, NUMBER, OPERATOR, COMMA, COLON -> true;
+                default -> false;
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "ExpressionCondition{" + left + " " + operator + " " + right + "}";
+        }
+    }
+
+    /**
+     * Comparison operator of an {@link ExpressionCondition}
+     */
+    public enum Operator {
+        GREATER, LESS, GREATER_EQUAL, LESS_EQUAL, EQUALS, NOT_EQUALS, CONTAINS, STARTS_WITH;
+
+        /**
+         * Operator starting at token i, or null.
+         * Word operators: "lebih dari" (>), "kurang dari" (<), "adalah" and "sama dengan" (==),
+         * "berisi" (contains text) and "diawali dengan" (starts with text), both ignoring case
+         */
+        static Operator at(List<Token> tokens, int i) {
+            Token token = tokens.get(i);
+            if (token.is(Token.Type.OPERATOR)) {
+                return switch (token.getValue()) {
+                    case ">" -> GREATER;
+                    case "<" -> LESS;
+                    case ">=" -> GREATER_EQUAL;
+                    case "<=" -> LESS_EQUAL;
+                    case "==", "=" -> EQUALS;
+                    case "!=" -> NOT_EQUALS;
+                    default -> null;
+                };
+            }
+            if (token.isWord("adalah")) return EQUALS;
+            if (token.isWord("berisi")) return CONTAINS;
+            if (i + 1 >= tokens.size()) return null;
+            Token next = tokens.get(i + 1);
+            if (token.isWord("lebih") && next.isWord("dari")) return GREATER;
+            if (token.isWord("kurang") && next.isWord("dari")) return LESS;
+            if (token.isWord("sama") && next.isWord("dengan")) return EQUALS;
+            if (token.isWord("diawali") && next.isWord("dengan")) return STARTS_WITH;
+            return null;
+        }
+
+        /** Number of tokens the operator at token i spans */
+        static int width(List<Token> tokens, int i) {
+            Token token = tokens.get(i);
+            return token.is(Token.Type.WORD) && !token.isWord("adalah") && !token.isWord("berisi") ? 2 : 1;
+        }
+    }
+
+    /**
+     * Operand of an {@link ExpressionCondition}, resolved once at load time
+     */
+    public abstract static class Operand {
+
+        /** Raw value, or null if missing */
+        public abstract Object value(ExecutionContext context);
+
+        /** Numeric value, or NaN if it is not a number. Missing variables count as 0. */
+        public abstract double number(ExecutionContext context);
+
+        /** Value as text, numbers the way messages show them ({x} set to 5 reads "5"), or null if missing */
+        public String text(ExecutionContext context) {
+            return toText(value(context));
+        }
+
+        /**
+         * Builds the operand for tokens [from, to) of the expression
+         * @return null if the range is empty
+         */
+        static Operand of(String expression, List<Token> tokens, int from, int to) {
+            if (from >= to) return null;
+            if (to - from == 1) {
+                Token token = tokens.get(from);
+                switch (token.getType()) {
+                    case NUMBER: return new NumberLiteral(Double.parseDouble(token.getValue()));
+                    case STRING: return new StringLiteral(token.getValue());
+                    case VARIABLE: {
+                        String name = token.getValue();
+                        if (ExecutionContext.isLocalName(name) && name.indexOf('%') < 0) {
+                            return new LocalRef(name, -1);
+                        }
+                        // Names with a dot or a placeholder are never context values
+                        return name.indexOf('.') >= 0 || name.indexOf('%') >= 0
+                                ? new VariableOperand(name)
+                                : new ContextSlot(name);
+                    }
+                    default: break;
+                }
+            }
+            // Anything else is compared as plain text
+            String text = expression.substring(tokens.get(from).getStart(), tokens.get(to - 1).getEnd());
+            return new StringLiteral(text.replace("\"", ""));
+        }
+
+        static String toText(Object value) {
+            if (value == null) return null;
+            if (value instanceof Double || value instanceof Float) {
+                return VariableManager.formatNumber(((Number) value).doubleValue());
+            }
+            return value.toString();
+        }
+
+        static double toNumber(Object value) {
+            if (value == null) return 0;
+            if (value instanceof Number number) return number.doubleValue();
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    /** 10, 2.5 */
+    public static final class NumberLiteral extends Operand {
+        private final double value;
+        private final Double boxed;
+
+        NumberLiteral(double value) {
+            this.value = value;
+            this.boxed = value;
+        }
+
+        @Override public Object value(ExecutionContext context) { return boxed; }
+        @Override public double number(ExecutionContext context) { return value; }
+        @Override public String toString() { return Double.toString(value); }
+    }
+
+    /** "emas" */
+    public static final class StringLiteral extends Operand {
+        private final String value;
+        private final double number;
+
+        StringLiteral(String value) {
+            this.value = value;
+            double parsed;
+            try {
+                parsed = Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                parsed = Double.NaN;
+            }
+            this.number = parsed;
+        }
+
+        public String getValue() { return value; }
+
+        @Override public Object value(ExecutionContext context) { return value; }
+        @Override public double number(ExecutionContext context) { return number; }
+        @Override public String toString() { return "\"" + value + "\""; }
+    }
+
+    /**
+     * {arg1}, {message}: a value of the running event or command.
+     * Falls back to the global variable of the same name, like message templates do.
+     */
+    public static final class ContextSlot extends Operand {
+        private final String name;
+        private final ExecutionContext.Key key; // null if the name is only a script variable
+
+        ContextSlot(String name) {
+            this.name = name;
+            this.key = ExecutionContext.Key.of(name);
+        }
+
+        @Override
+        public Object value(ExecutionContext context) {
+            Object value = key != null ? key.get(context) : null;
+            if (value != null) return value;
+            VariableManager variables = context.getVariables();
+            return variables != null ? variables.getGlobal(name) : null;
+        }
+
+        @Override
+        public double number(ExecutionContext context) {
+            if (key != null) {
+                double number = key.number(context);
+                if (!Double.isNaN(number)) return number;
+                if (key.get(context) != null) return Double.NaN; // present, but not a number
+            }
+            VariableManager variables = context.getVariables();
+            return variables != null ? variables.getNumber(null, name) : 0;
+        }
+
+        public String getName() { return name; }
+
+        @Override public boolean equals(Object o) { return o instanceof ContextSlot other && name.equals(other.name); }
+        @Override public int hashCode() { return name.hashCode(); }
+        @Override public String toString() { return "{" + name + "}"; }
+    }
+
+    /**
+     * {skor} or {skor.%pemain%}: a script variable, resolved like setel/tambah resolve it
+     * (see {@link VariableRef})
+     */
+    public static final class VariableOperand extends Operand {
+        private final String name;
+        private final VariableRef variable;
+
+        VariableOperand(String name) {
+            this.name = name;
+            this.variable = VariableRef.of(name);
+        }
+
+        @Override
+        public Object value(ExecutionContext context) {
+            VariableManager variables = context.getVariables();
+            return variables != null ? variable.get(variables, context.getPlayer()) : null;
+        }
+
+        @Override
+        public double number(ExecutionContext context) {
+            VariableManager variables = context.getVariables();
+            return variables != null ? variable.number(variables, context.getPlayer()) : 0;
+        }
+
+        @Override public boolean equals(Object o) { return o instanceof VariableOperand other && variable.equals(other.variable); }
+        @Override public int hashCode() { return variable.hashCode(); }
+        @Override public String toString() { return "{" + name + "}"; }
+    }
+
+    /**
+     * {_naam}: a local variable of the running handler or command.
+     * The compiler assigns the slot index ({@link #withLocals}); unbound references read as missing.
+     */
+    public static final class LocalRef extends Operand {
+        private final String name;
+        private final int index;
+
+        LocalRef(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        @Override public Object value(ExecutionContext context) { return index >= 0 ? context.getLocal(index) : null; }
+        @Override
+        public double number(ExecutionContext context) {
+            if (index >= 0 && context.hasLocalNumber(index)) return context.getLocalNumber(index);
+            return toNumber(value(context));
+        }
+        @Override public boolean equals(Object o) { return o instanceof LocalRef other && index == other.index && name.equals(other.name); }
+        @Override public int hashCode() { return name.hashCode() * 31 + index; }
+        @Override public String toString() { return "{" + name + "}"; }
+    }
+
+    /**
+     * A condition with a fixed result, for jika lines the compiler could not resolve
+     */
+    public static final class Constant extends Condition {
+        public static final Constant FALSE = new Constant(false);
+        private final boolean value;
+        private Constant(boolean value) {
+            super(0);
+            this.value = value;
+        }
+        @Override public boolean isAsyncSafe() { return true; }
+        @Override
+        public boolean evaluate(ExecutionContext context) {
+            return value;
+        }
     }
 
     // --- EXISTING INNER CLASSES ---
@@ -68,8 +416,9 @@ public abstract class Condition {
             super(lineNumber);
             this.threshold = threshold;
         }
+        public double getThreshold() { return threshold; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             return player != null && player.getHealth() < threshold;
         }
@@ -81,34 +430,47 @@ public abstract class Condition {
             super(lineNumber);
             this.worldName = worldName;
         }
+        public String getWorldName() { return worldName; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             return player != null && player.getWorld().getName().equalsIgnoreCase(worldName);
         }
     }
 
+    /**
+     * Material conditions keep the name as written; the material is null if the
+     * name is unknown, which the compiler reports and compiles to {@link Constant#FALSE}
+     */
     public static class BlockTypeCondition extends Condition {
+        private final String materialName;
         private final Material material;
-        public BlockTypeCondition(Material material, int lineNumber) {
+        public BlockTypeCondition(String materialName, int lineNumber) {
             super(lineNumber);
-            this.material = material;
+            this.materialName = materialName;
+            this.material = Material.matchMaterial(materialName);
         }
+        public String getMaterialName() { return materialName; }
+        public Material getMaterial() { return material; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Block block = getBlock(context);
             return block != null && block.getType() == material;
         }
     }
 
     public static class HoldingItemCondition extends Condition {
+        private final String materialName;
         private final Material material;
-        public HoldingItemCondition(Material material, int lineNumber) {
+        public HoldingItemCondition(String materialName, int lineNumber) {
             super(lineNumber);
-            this.material = material;
+            this.materialName = materialName;
+            this.material = Material.matchMaterial(materialName);
         }
+        public String getMaterialName() { return materialName; }
+        public Material getMaterial() { return material; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             if (player == null) return false;
             ItemStack item = player.getInventory().getItemInMainHand();
@@ -122,8 +484,10 @@ public abstract class Condition {
             super(lineNumber);
             this.permission = permission;
         }
+        public String getPermission() { return permission; }
+        @Override public boolean isAsyncSafe() { return true; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             return player != null && player.hasPermission(permission);
         }
@@ -135,8 +499,10 @@ public abstract class Condition {
             super(lineNumber);
             this.playerName = playerName;
         }
+        public String getPlayerName() { return playerName; }
+        @Override public boolean isAsyncSafe() { return true; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             return player != null && player.getName().equalsIgnoreCase(playerName);
         }
@@ -144,57 +510,70 @@ public abstract class Condition {
 
     public static class VariableLessThanCondition extends Condition {
         private final String variableName;
+        private final VariableRef variable;
         private final double threshold;
         public VariableLessThanCondition(String variableName, double threshold, int lineNumber) {
             super(lineNumber);
             this.variableName = variableName;
+            this.variable = VariableRef.of(variableName);
             this.threshold = threshold;
         }
+        public String getVariableName() { return variableName; }
+        public double getThreshold() { return threshold; }
+        @Override public boolean isAsyncSafe() { return true; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
-            Object val = getVariable(context, variableName);
-            if (val == null) return false;
-            try { return Double.parseDouble(val.toString()) < threshold; } 
-            catch (NumberFormatException e) { return false; }
+        public boolean evaluate(ExecutionContext context) {
+            // Text that is not a number reads as NaN, which compares false
+            VariableManager vm = context.getVariables();
+            return vm != null && variable.number(vm, getPlayer(context)) < threshold;
         }
     }
 
     public static class VariableGreaterThanCondition extends Condition {
         private final String variableName;
+        private final VariableRef variable;
         private final double threshold;
         public VariableGreaterThanCondition(String variableName, double threshold, int lineNumber) {
             super(lineNumber);
             this.variableName = variableName;
+            this.variable = VariableRef.of(variableName);
             this.threshold = threshold;
         }
+        public String getVariableName() { return variableName; }
+        public double getThreshold() { return threshold; }
+        @Override public boolean isAsyncSafe() { return true; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
-            Object val = getVariable(context, variableName);
-            if (val == null) return false;
-            try { return Double.parseDouble(val.toString()) > threshold; } 
-            catch (NumberFormatException e) { return false; }
+        public boolean evaluate(ExecutionContext context) {
+            // Text that is not a number reads as NaN, which compares false
+            VariableManager vm = context.getVariables();
+            return vm != null && variable.number(vm, getPlayer(context)) > threshold;
         }
     }
 
     public static class VariableEqualsCondition extends Condition {
         private final String variableName;
+        private final VariableRef variable;
         private final String expectedValue;
         public VariableEqualsCondition(String variableName, String expectedValue, int lineNumber) {
             super(lineNumber);
             this.variableName = variableName;
+            this.variable = VariableRef.of(variableName);
             this.expectedValue = expectedValue;
         }
+        public String getVariableName() { return variableName; }
+        public String getExpectedValue() { return expectedValue; }
+        @Override public boolean isAsyncSafe() { return true; }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
-            Object val = getVariable(context, variableName);
-            return val != null && val.toString().equalsIgnoreCase(expectedValue);
+        public boolean evaluate(ExecutionContext context) {
+            String val = Operand.toText(getVariable(context, variable));
+            return val != null && val.equalsIgnoreCase(expectedValue);
         }
     }
 
     public static class PlayerFlyingCondition extends Condition {
         public PlayerFlyingCondition(int lineNumber) { super(lineNumber); }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             return player != null && player.isFlying();
         }
@@ -203,7 +582,7 @@ public abstract class Condition {
     public static class PlayerSneakingCondition extends Condition {
         public PlayerSneakingCondition(int lineNumber) { super(lineNumber); }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             return player != null && player.isSneaking();
         }
@@ -212,7 +591,7 @@ public abstract class Condition {
     public static class ToolMatchCondition extends Condition {
         public ToolMatchCondition(int lineNumber) { super(lineNumber); }
         @Override
-        public boolean evaluate(Map<String, Object> context) {
+        public boolean evaluate(ExecutionContext context) {
             Player player = getPlayer(context);
             Block block = getBlock(context);
             if (player == null || block == null) return false;
@@ -230,29 +609,35 @@ public abstract class Condition {
 
     protected final int lineNumber;
     public Condition(int lineNumber) { this.lineNumber = lineNumber; }
-    public abstract boolean evaluate(Map<String, Object> context);
+    public abstract boolean evaluate(ExecutionContext context);
     public int getLineNumber() { return lineNumber; }
 
-    protected Player getPlayer(Map<String, Object> context) {
-        Object obj = context.get("player");
-        return obj instanceof Player ? (Player) obj : null;
+    /**
+     * True if the condition may be evaluated on an async event thread (chat).
+     * Conditions that read entity or world state (health, held item, block) may not.
+     */
+    public boolean isAsyncSafe() {
+        return false;
     }
 
-    protected Block getBlock(Map<String, Object> context) {
-        Object obj = context.get("block");
-        return obj instanceof Block ? (Block) obj : null;
+    /**
+     * Binds {_name} local variables to the slots the compiler assigned.
+     * Conditions without locals return themselves.
+     */
+    public Condition withLocals(ToIntFunction<String> slots) {
+        return this;
     }
 
-    protected Object getVariable(Map<String, Object> context, String variableName) {
-        Object vmObj = context.get("variableManager");
-        if (!(vmObj instanceof VariableManager)) return null;
-        VariableManager vm = (VariableManager) vmObj;
-        if (variableName.contains("%player%")) {
-            Player player = getPlayer(context);
-            if (player == null) return null;
-            String actual = variableName.replace(".%player%", "").replace("%player%.", "");
-            return vm.getPlayer(player.getName(), actual);
-        }
-        return vm.getGlobal(variableName);
+    protected Player getPlayer(ExecutionContext context) {
+        return context.getPlayer();
+    }
+
+    protected Block getBlock(ExecutionContext context) {
+        return context.getBlock();
+    }
+
+    protected Object getVariable(ExecutionContext context, VariableRef variable) {
+        VariableManager vm = context.getVariables();
+        return vm != null ? variable.get(vm, getPlayer(context)) : null;
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.crow6980.nusantarascript.condition;
 import com.crow6980.nusantarascript.script.Action;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -26,11 +27,17 @@ public class ConditionalBlock {
     private final List<Action> elseActions; // phase3
     private final int lineNumber;
     
+    // Read-only views handed out by the getters, so callers never copy
+    private final List<Action> actionsView;
+    private final List<Action> elseActionsView;
+    
     public ConditionalBlock(Condition condition, int lineNumber) {
         this.condition = condition;
         this.actions = new ArrayList<>();
         this.elseActions = new ArrayList<>();
         this.lineNumber = lineNumber;
+        this.actionsView = Collections.unmodifiableList(actions);
+        this.elseActionsView = Collections.unmodifiableList(elseActions);
     }
     
     public void addAction(Action action) {
@@ -45,12 +52,18 @@ public class ConditionalBlock {
         return condition;
     }
     
+    /**
+     * @return Read-only view of the actions run when the condition holds
+     */
     public List<Action> getActions() {
-        return new ArrayList<>(actions);
+        return actionsView;
     }
     
+    /**
+     * @return Read-only view of the jika tidak actions
+     */
     public List<Action> getElseActions() {
-        return new ArrayList<>(elseActions);
+        return elseActionsView;
     }
     
     public int getLineNumber() {
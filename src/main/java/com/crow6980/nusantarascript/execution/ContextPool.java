@@ -0,0 +1,51 @@
+package com.crow6980.nusantarascript.execution;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+
+/**
+ * Free list of {@link ExecutionContext}s for events fired on the main thread.
+ *
+ * Handlers can trigger further events while they run (a teleport fires a
+ * teleport event, a kick fires a quit event), so contexts are taken and given
+ * back like a stack: every nested dispatch gets its own context. After the
+ * first few events no context is allocated anymore.
+ *
+ * Main thread only. Async events (chat) build their own context.
+ *
+ * @author crow6980
+ */
+public final class ContextPool {
+
+    // Deeper nesting than this is unusual; extra contexts are simply dropped on release
+    private static final int MAX_POOLED = 16;
+
+    private final ExecutionContext[] free = new ExecutionContext[MAX_POOLED];
+    private int size;
+
+    /**
+     * Takes a cleared context and fills in the player and event slots
+     */
+    public ExecutionContext acquire(Player player, Event event) {
+        ExecutionContext context;
+        if (size > 0) {
+            context = free[--size];
+            free[size] = null;
+            context.setPlayer(player);
+            context.setEvent(event);
+        } else {
+            context = new ExecutionContext(player, event);
+        }
+        return context;
+    }
+
+    /**
+     * Gives a context back. It must not be used by the caller afterwards.
+     */
+    public void release(ExecutionContext context) {
+        context.clear();
+        if (size < MAX_POOLED) {
+            free[size++] = context;
+        }
+    }
+}
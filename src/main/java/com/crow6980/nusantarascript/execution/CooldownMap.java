@@ -0,0 +1,139 @@
+package com.crow6980.nusantarascript.execution;
+
+import java.util.UUID;
+
+/**
+ * Per-player cooldown expiry times of one command or handler (tunggu: N detik).
+ *
+ * An open-addressing hash table with linear probing over primitive arrays:
+ * the two halves of the player UUID as keys and the expiry time in
+ * milliseconds as value, so checking a cooldown boxes nothing and touches no
+ * script variables.
+ *
+ * Entries are never removed one by one. An expired entry simply counts as
+ * "not on cooldown" and is overwritten when the player uses the command
+ * again; when the table fills up it is rebuilt without the expired entries
+ * and only grows if the live ones still need the room.
+ *
+ * Synchronized, as chat handlers check their cooldown on the async chat thread.
+ *
+ * @author crow6980
+ */
+public final class CooldownMap {
+
+    private static final int INITIAL_CAPACITY = 16; // power of two
+
+    private final long durationMillis;
+    private long[] most = new long[INITIAL_CAPACITY];
+    private long[] least = new long[INITIAL_CAPACITY];
+    private long[] expires = new long[INITIAL_CAPACITY]; // 0 = empty slot
+    private int size;
+
+    public CooldownMap(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return Milliseconds until the player may go again, or 0 if not on cooldown
+     */
+    public synchronized long remaining(UUID player, long now) {
+        int slot = find(player.getMostSignificantBits(), player.getLeastSignificantBits());
+        return slot >= 0 ? Math.max(0, expires[slot] - now) : 0;
+    }
+
+    /**
+     * Starts the cooldown of a player at time now
+     */
+    public synchronized void start(UUID player, long now) {
+        put(player.getMostSignificantBits(), player.getLeastSignificantBits(), now + durationMillis, now);
+    }
+
+    /**
+     * Starts the cooldown unless the player is still on it
+     * @return false if the player is on cooldown (nothing changes then)
+     */
+    public synchronized boolean tryStart(UUID player, long now) {
+        long msb = player.getMostSignificantBits();
+        long lsb = player.getLeastSignificantBits();
+        int slot = find(msb, lsb);
+        if (slot >= 0 && expires[slot] > now) return false;
+        put(msb, lsb, now + durationMillis, now);
+        return true;
+    }
+
+    public synchronized void clear() {
+        most = new long[INITIAL_CAPACITY];
+        least = new long[INITIAL_CAPACITY];
+        expires = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    // ==================== TABLE ====================
+
+    /**
+     * @return The slot of the key, or -1 if it is not in the table
+     */
+    private int find(long msb, long lsb) {
+        int mask = expires.length - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            if (expires[slot] == 0) return -1;
+            if (most[slot] == msb && least[slot] == lsb) return slot;
+        }
+    }
+
+    private void put(long msb, long lsb, long expiresAt, long now) {
+        int mask = expires.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (expires[slot] != 0) {
+            if (most[slot] == msb && least[slot] == lsb) {
+                expires[slot] = expiresAt;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // New key: keep the table at most half full
+        if (size + 1 > expires.length / 2) {
+            sweep(now);
+            put(msb, lsb, expiresAt, now);
+            return;
+        }
+        most[slot] = msb;
+        least[slot] = lsb;
+        expires[slot] = expiresAt;
+        size++;
+    }
+
+    /**
+     * Rebuilds the table without expired entries, doubling it only if the live entries need it
+     */
+    private void sweep(long now) {
+        long[] oldMost = most;
+        long[] oldLeast = least;
+        long[] oldExpires = expires;
+
+        int live = 0;
+        for (long expiry : oldExpires) {
+            if (expiry > now) live++;
+        }
+        int capacity = oldExpires.length;
+        if (live + 1 > capacity / 4) capacity *= 2;
+
+        most = new long[capacity];
+        least = new long[capacity];
+        expires = new long[capacity];
+        size = 0;
+        for (int i = 0; i < oldExpires.length; i++) {
+            if (oldExpires[i] > now) put(oldMost[i], oldLeast[i], oldExpires[i], now);
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
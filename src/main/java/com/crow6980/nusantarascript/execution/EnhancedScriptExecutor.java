@@ -1,328 +1,262 @@
 package com.crow6980.nusantarascript.execution;
 
 import com.crow6980.nusantarascript.NusantaraScript;
-import com.crow6980.nusantarascript.condition.ConditionalBlock;
+import com.crow6980.nusantarascript.compiler.CompiledCommand;
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.manager.VariableManager;
-import com.crow6980.nusantarascript.script.Action;
-
-
-
-import org.bukkit.Bukkit;
-import org.bukkit.Material;
+import com.crow6980.nusantarascript.registry.EventRegistry;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Cancellable;
-import org.bukkit.inventory.ItemStack;
+import org.bukkit.event.Event;
 
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
 
 /**
  * PHASE 2 - Enhanced Execution Logic
- * Supports: Variable replacement, Conditional logic, Sound, Teleport, and Effects.
+ * Runs compiled script handlers and commands.
+ *
+ * All operand parsing (numbers, materials, message templates) happens once in
+ * {@link com.crow6980.nusantarascript.compiler.ScriptCompiler}; this class only
+ * walks the resulting instruction trees. Listeners pass the event values in a
+ * typed {@link ExecutionContext}.
+ *
+ * The main-thread event path does not allocate once warmed up: contexts come
+ * from a {@link ContextPool} and the handlers of an event type are a shared
+ * array kept by the {@link com.crow6980.nusantarascript.registry.EventRegistry}.
+ *
+ * Async events hand their main-thread work to a {@link MainThreadQueue} that is
+ * drained once per tick within execution.tick-budget-ms.
+ *
+ * Messages a dispatch sends to its player are collected in an {@link Outbox}
+ * and sent as one multi-line message when the dispatch ends.
  */
 public class EnhancedScriptExecutor {
 
     private final NusantaraScript plugin;
     private final VariableManager variableManager;
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([^}]+)}");
+    private final ContextPool contextPool = new ContextPool();
+    private final MainThreadQueue mainThreadQueue;
+    private final ExecutionBudget budget;
+    private final Outbox outbox;
+    private final Supplier<EventRegistry> eventRegistry;
+    private final ServerClock clock;
 
     public EnhancedScriptExecutor(NusantaraScript plugin, VariableManager variableManager) {
-        this.plugin = plugin;
-        this.variableManager = variableManager;
-    }
-    public void execute(com.crow6980.nusantarascript.script.EventHandler handler, Map<String, Object> context) {
-        if (handler == null) return;
-        
-        for (Action action : handler.getActions()) {
-            // This handles Error #2 and #4
-            if (action.getActionType() == Action.ActionType.STOP) {
-                return; 
-            }
-            executeAction(action, context);
-        }
+        this(plugin, variableManager, plugin.getConfig(), plugin::getEventRegistry, ServerClock.BUKKIT);
     }
+
     /**
-     * Entry point for Listeners to trigger script logic.
+     * For tests that dispatch without a running server
      */
-    public void executeHandler(com.crow6980.nusantarascript.script.EventHandler handler, Map<String, Object> context) {
-        context.put("variableManager", variableManager);
-        try {
-            for (Action action : handler.getActions()) {
-                if (action.getActionType() == Action.ActionType.STOP) return;
-                executeAction(action, context);
-            }
-        } catch (Exception e) {
-            plugin.getLogger().severe("Error executing script handler: " + e.getMessage());
-        }
+    EnhancedScriptExecutor(NusantaraScript plugin, VariableManager variableManager, ConfigurationSection config,
+                           Supplier<EventRegistry> eventRegistry, ServerClock clock) {
+        this.plugin = plugin;
+        this.variableManager = variableManager;
+        this.eventRegistry = eventRegistry;
+        this.clock = clock;
+        this.mainThreadQueue = new MainThreadQueue(plugin, tickBudget(config));
+        this.budget = new ExecutionBudget(plugin, config, clock);
+        this.outbox = new Outbox(config);
     }
-    /**
-     * Finds and executes all script handlers for a specific event type.
-     * This fixes the "undefined" error in your listener/registry classes.
-     */
-    public void executeEvent(com.crow6980.nusantarascript.script.EventHandler.EventType eventType, Map<String, Object> context) {
-        // 1. Get the list of handlers for this specific event from the registry
-        var handlers = plugin.getEventRegistry().getHandlers(eventType);
-        
-        if (handlers == null || handlers.isEmpty()) {
-            return;
-        }
 
-        // 2. Loop through every script that wants to run for this event
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
-            // 3. Use your existing execute method to run the actions
-            execute(handler, context);
-        }
+    // ==================== MAIN THREAD QUEUE ====================
+
+    public void start() {
+        mainThreadQueue.start();
     }
-    public void executeAction(Action action, Map<String, Object> context) {
-        switch (action.getActionType()) {
-            case SEND_MESSAGE -> executeSendMessage(action, context);
-            case BROADCAST -> executeBroadcast(action, context);
-            case CANCEL_EVENT -> handleCancelAction(context); // FIXED: Linked to method
-            case HEAL_PLAYER -> executeHealPlayer(action, context);
-            case FEED_PLAYER -> executeFeedPlayer(action, context);
-            case SET_VARIABLE -> executeSetVariable(action, context);
-            case ADD_VARIABLE -> executeAddVariable(action, context);
-            case SUBTRACT_VARIABLE -> executeSubtractVariable(action, context);
-            case DELETE_VARIABLE -> executeDeleteVariable(action, context);
-            case GIVE_ITEM -> executeGiveItem(action, context);
-            case KICK_PLAYER -> executeKickPlayer(action, context);
-            case TELEPORT -> executeTeleport(action, context);
-            case PLAY_SOUND -> executePlaySound(action, context);
-            case GIVE_EFFECT -> executeGiveEffect(action, context);
-            case NESTED_CONDITION -> {
-                if (action.getNestedBlock() != null) executeConditionalBlock(action.getNestedBlock(), context);
-            }
-            default -> {}
-        }
+
+    public void shutdown() {
+        mainThreadQueue.stop();
     }
 
-    private void executeConditionalBlock(ConditionalBlock block, Map<String, Object> context) {
-        // We use .toString() to get the condition text (e.g., "alat benar")
-        // and pass it to our evaluateCondition method.
-        String conditionText = block.getCondition().toString(); 
-        
-        // This line FIXES BOTH ERRORS: 
-        // 1. It uses evaluateCondition (removing the 'unused' warning)
-        // 2. It avoids calling the undefined getRawCondition()
-        boolean result = evaluateCondition(conditionText, context);
-        
-        if (result) {
-            for (Action action : block.getActions()) {
-                executeAction(action, context);
-            }
-        } else {
-            for (Action elseAction : block.getElseActions()) {
-                executeAction(elseAction, context);
-            }
-        }
+    /**
+     * Re-reads execution.tick-budget-ms, execution.budget and execution.outbox after the config was reloaded
+     */
+    public void reloadSettings() {
+        mainThreadQueue.setBudget(tickBudget(plugin.getConfig()));
+        budget.reload(plugin.getConfig());
+        outbox.reload(plugin.getConfig());
     }
 
     /**
-     * Logic for evaluating conditions, including Indonesian keywords.
+     * Runs a task on the main thread during the next tick that has budget left.
+     * Safe to call from any thread.
      */
-    private boolean evaluateCondition(String condition, Map<String, Object> context) {
-        if (condition == null) return false;
-        
-        // Clean the string (remove brackets or whitespace if your parser leaves them)
-        String cleanCondition = condition.replace("{", "").replace("}", "").trim();
-        
-        // Check for our special Indonesian keyword
-        if (cleanCondition.equalsIgnoreCase("alat benar")) {
-            return isToolCorrect(context);
-        }
-        
-        // Add more conditions here later (e.g., "pemain sedang menyelinap")
-        if (cleanCondition.equalsIgnoreCase("pemain sedang menyelinap")) {
-            Player p = (Player) context.get("player");
-            return p != null && p.isSneaking();
-        }
+    public void runOnMainThread(Runnable task) {
+        mainThreadQueue.submit(task);
+    }
 
-        return false;
+    public MainThreadQueue getMainThreadQueue() {
+        return mainThreadQueue;
     }
 
-    // ==================== CORE UTILITIES ====================
+    public ExecutionBudget getBudget() {
+        return budget;
+    }
 
-    private void handleCancelAction(Map<String, Object> context) {
-        Object eventObj = context.get("event");
-        if (eventObj instanceof Cancellable cancellableEvent) {
-            cancellableEvent.setCancelled(true);
-            if (plugin.isDebugEnabled()) {
-                plugin.getLogger().info("[Debug] Event dibatalkan via skrip.");
-            }
-        }
+    private static double tickBudget(ConfigurationSection config) {
+        return config.getDouble("execution.tick-budget-ms", 2.0);
     }
 
-    private boolean isToolCorrect(Map<String, Object> context) {
-        Object playerObj = context.get("player");
-        Object blockObj = context.get("block");
+    // ==================== EXECUTION ====================
 
-        if (playerObj instanceof Player player && blockObj instanceof org.bukkit.block.Block block) {
-            ItemStack itemInHand = player.getInventory().getItemInMainHand();
-            return block.isPreferredTool(itemInHand);
-        }
-        return false;
+    /**
+     * Takes a pooled context for an event fired on the main thread.
+     * Must be given back with {@link #releaseContext} once the event is dispatched.
+     */
+    public ExecutionContext acquireContext(Player player, Event event) {
+        return contextPool.acquire(player, event);
     }
 
-    // ==================== ACTION IMPLEMENTATIONS ====================
-
-    private void executeSendMessage(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player != null) player.sendMessage(replacePlaceholders(action.getParameter(), context));
+    public void releaseContext(ExecutionContext context) {
+        contextPool.release(context);
     }
-    
-    private void executeBroadcast(Action action, Map<String, Object> context) {
-        String msg = replacePlaceholders(action.getParameter(), context);
-        Bukkit.broadcast(net.kyori.adventure.text.Component.text(msg));
+
+    /**
+     * Runs one handler, unless its world or permission guard rejects the context,
+     * the player is on its cooldown, its breaker is open or it already used its budget in this tick (then it is
+     * skipped or deferred, see {@link ExecutionBudget}).
+     */
+    public void execute(CompiledHandler handler, ExecutionContext context) {
+        execute(handler, context, true);
     }
 
-    private void executeHealPlayer(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player != null) {
-            player.setHealth(20.0);
-            player.setFoodLevel(20);
+    private void execute(CompiledHandler handler, ExecutionContext context, boolean mayDefer) {
+        if (handler == null || !handler.getGuard().admits(context)) return;
+
+        ExecutionBudget.Account account = budget.account(handler);
+        if (account != null) {
+            if (account.isTripped()) return;
+            if (budget.isOverBudget(account)) {
+                if (mayDefer && budget.getOverBudget() == ExecutionBudget.OverBudget.DEFER && !needsLiveEvent(handler, context)) {
+                    budget.recordDeferred(account);
+                    mainThreadQueue.submit(new DeferredRun(handler, context.copy(), clock.getCurrentTick()));
+                }
+                return;
+            }
         }
-    }
 
-    private void executeFeedPlayer(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player != null) player.setFoodLevel(20);
-    }
+        // tunggu: starts the cooldown only for a run that really happens, so a skipped
+        // run does not use it up and a deferred one gets its own check when it runs
+        CooldownMap cooldowns = handler.getCooldowns();
+        if (cooldowns != null && context.getPlayer() != null
+                && !cooldowns.tryStart(context.getPlayer().getUniqueId(), System.currentTimeMillis())) {
+            return;
+        }
 
-    private void executeTeleport(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player == null || action.getParameter() == null) return;
-        String[] parts = action.getParameter().split(",");
-        if (parts.length >= 4) {
-            try {
-                org.bukkit.World world = Bukkit.getWorld(parts[0].trim());
-                double x = Double.parseDouble(parts[1].trim());
-                double y = Double.parseDouble(parts[2].trim());
-                double z = Double.parseDouble(parts[3].trim());
-                if (world != null) player.teleport(new org.bukkit.Location(world, x, y, z));
-            } catch (Exception e) {
-                plugin.getLogger().warning("Format teleport salah: " + action.getParameter());
+        long start = System.nanoTime();
+        try {
+            handler.run(context);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error executing script handler " + handler + ": " + e.getMessage());
+            if (plugin.isDebugEnabled()) {
+                e.printStackTrace();
             }
+        } finally {
+            if (account != null) budget.record(account, System.nanoTime() - start);
         }
     }
 
-    private void executePlaySound(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player == null || action.getParameter() == null) return;
-        try {
-            String soundName = action.getParameter().toLowerCase().replace(".", "_");
-            org.bukkit.Sound sound = org.bukkit.Registry.SOUND_EVENT.get(org.bukkit.NamespacedKey.minecraft(soundName));
-            if (sound != null) player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-        } catch (Exception ignored) {}
+    /**
+     * A deferred run happens after the event is over, when cancelling it does nothing;
+     * such handlers are skipped instead
+     */
+    private static boolean needsLiveEvent(CompiledHandler handler, ExecutionContext context) {
+        return handler.cancelsEvent() && context.getEvent() instanceof Cancellable;
     }
 
-    private void executeGiveEffect(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player == null || action.getParameter() == null) return;
-        String[] parts = action.getParameter().split(",");
-        if (parts.length >= 3) {
-            try {
-                String effectName = parts[0].toUpperCase().trim();
-                int duration = Integer.parseInt(parts[1].trim()) * 20;
-                int amp = Integer.parseInt(parts[2].trim());
-                org.bukkit.potion.PotionEffectType type = org.bukkit.Registry.EFFECT.get(org.bukkit.NamespacedKey.minecraft(effectName.toLowerCase()));
-                if (type != null) player.addPotionEffect(new org.bukkit.potion.PotionEffect(type, duration, amp));
-            } catch (Exception ignored) {}
-        }
+    /**
+     * Entry point for Listeners to trigger script logic.
+     */
+    public void executeHandler(CompiledHandler handler, ExecutionContext context) {
+        context.setVariables(variableManager);
+        outbox.open(context);
+        execute(handler, context);
+        outbox.close(context);
     }
 
-    // ==================== VARIABLE LOGIC ====================
-
-    private void executeSetVariable(Action action, Map<String, Object> context) {
-        String varName = action.getParameter();
-        String value = action.getAdditionalParams().length > 0 ? action.getAdditionalParams()[0] : "";
-        value = replacePlaceholders(value, context);
-        if (varName.contains("%player%")) {
-            Player p = (Player) context.get("player");
-            if (p != null) variableManager.setPlayer(p.getName(), varName.replace("%player%", "").replace("..", "."), value);
-        } else {
-            variableManager.setGlobal(varName, value);
-        }
+    /**
+     * Finds and executes all script handlers for a specific event type.
+     * Block and chat events only visit the handlers that can act on the block or message.
+     */
+    public void executeEvent(com.crow6980.nusantarascript.script.EventHandler.EventType eventType, ExecutionContext context) {
+        executeHandlers(eventRegistry.get().getHandlers(eventType, context), context);
     }
 
-    private void executeAddVariable(Action action, Map<String, Object> context) { modifyVariable(action, context, 1); }
-    private void executeSubtractVariable(Action action, Map<String, Object> context) { modifyVariable(action, context, -1); }
+    /**
+     * Runs the given handlers in order on the calling thread.
+     */
+    public void executeHandlers(CompiledHandler[] handlers, ExecutionContext context) {
+        if (handlers.length == 0) {
+            return;
+        }
 
-    private void modifyVariable(Action action, Map<String, Object> context, int mult) {
-        String varName = action.getParameter();
-        String amtStr = action.getAdditionalParams().length > 0 ? action.getAdditionalParams()[0] : "1";
-        try {
-            double val = Double.parseDouble(amtStr) * mult;
-            if (varName.contains("%player%")) {
-                Player p = (Player) context.get("player");
-                if (p != null) variableManager.add(p.getName(), varName.replace("%player%", "").replace("..", "."), val);
-            } else {
-                variableManager.add(null, varName, val);
-            }
-        } catch (Exception ignored) {}
+        // Conditions read script variables through the context
+        context.setVariables(variableManager);
+        outbox.open(context);
+        for (CompiledHandler handler : handlers) {
+            execute(handler, context);
+        }
+        outbox.close(context);
     }
 
-    private void executeDeleteVariable(Action action, Map<String, Object> context) {
-        String varName = action.getParameter();
-        if (varName.contains("%player%")) {
-            Player p = (Player) context.get("player");
-            if (p != null) variableManager.deletePlayer(p.getName(), varName.replace("%player%", "").replace("..", "."));
-        } else {
-            variableManager.deleteGlobal(varName);
+    /**
+     * Runs only the handlers that are (or are not) {@link CompiledHandler#isAsyncSafe() async-safe},
+     * in order. Async event threads must pass asyncSafe = true.
+     */
+    public void executeHandlers(CompiledHandler[] handlers, ExecutionContext context, boolean asyncSafe) {
+        context.setVariables(variableManager);
+        outbox.open(context);
+        for (CompiledHandler handler : handlers) {
+            if (handler.isAsyncSafe() == asyncSafe) execute(handler, context);
         }
+        outbox.close(context);
     }
 
-    private void executeGiveItem(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player == null) return;
+    /**
+     * Runs the body of a script command. Errors are left to the caller,
+     * which reports them back to the command sender.
+     */
+    public void executeCommand(CompiledCommand command, ExecutionContext context) {
+        context.setVariables(variableManager);
+        outbox.open(context);
         try {
-            Material mat = Material.valueOf(action.getParameter().toUpperCase());
-            int amt = action.getAdditionalParams().length > 0 ? Integer.parseInt(action.getAdditionalParams()[0]) : 1;
-            player.getInventory().addItem(new ItemStack(mat, amt));
-        } catch (Exception ignored) {}
-    }
-
-    private void executeKickPlayer(Action action, Map<String, Object> context) {
-        Player player = (Player) context.get("player");
-        if (player != null) {
-            String reason = replacePlaceholders(action.getParameter(), context);
-            player.kick(net.kyori.adventure.text.Component.text(reason));
+            command.run(context);
+        } finally {
+            outbox.close(context);
         }
     }
 
-    // ==================== PLACEHOLDERS ====================
-
-    private String replacePlaceholders(String message, Map<String, Object> context) {
-        if (message == null) return "";
-        String result = message;
-        if (context.containsKey("player")) {
-            result = result.replace("%player%", ((Player) context.get("player")).getName());
+    /**
+     * A handler run moved to a later tick because it was over budget.
+     * Run in the tick it was queued in, it goes back to the queue for the next drain;
+     * in a later tick it runs once, or is skipped if it is still over budget.
+     */
+    private final class DeferredRun implements Runnable {
+        private final CompiledHandler handler;
+        private final ExecutionContext context;
+        private final int queuedTick;
+
+        private DeferredRun(CompiledHandler handler, ExecutionContext context, int queuedTick) {
+            this.handler = handler;
+            this.context = context;
+            this.queuedTick = queuedTick;
         }
-        for (Map.Entry<String, Object> entry : context.entrySet()) {
-            String key = "{" + entry.getKey() + "}";
-            if (result.contains(key) && entry.getValue() != null) {
-                result = result.replace(key, entry.getValue().toString());
+
+        @Override
+        public void run() {
+            if (clock.getCurrentTick() == queuedTick) {
+                mainThreadQueue.submit(this);
+                return;
             }
+            outbox.open(context);
+            execute(handler, context, false);
+            outbox.close(context);
         }
-        result = replaceVariables(result, context);
-        return result.replace("&", "§");
     }
 
-    private String replaceVariables(String text, Map<String, Object> context) {
-        Matcher matcher = VARIABLE_PATTERN.matcher(text);
-        StringBuilder sb = new StringBuilder();
-        while (matcher.find()) {
-            String varName = matcher.group(1);
-            Object val;
-            if (varName.contains("%player%")) {
-                Player p = (Player) context.get("player");
-                val = (p != null) ? variableManager.getPlayer(p.getName(), varName.replace("%player%", "").replace("..", ".")) : null;
-            } else {
-                val = variableManager.getGlobal(varName);
-            }
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(val != null ? val.toString() : "0"));
-        }
-        matcher.appendTail(sb);
-        return sb.toString();
+    public VariableManager getVariableManager() {
+        return variableManager;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+package com.crow6980.nusantarascript.execution;
+
+import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Per-tick CPU time budgets and circuit breakers for event handlers.
+ *
+ * Every handler and every script has an {@link Account} with the nanoseconds
+ * it used in the current tick. Once either is over its budget, further runs
+ * in that tick are skipped or deferred to the {@link MainThreadQueue},
+ * depending on execution.budget.over-budget.
+ *
+ * A handler that goes over its own budget, or is deferred, in breaker-strikes
+ * different ticks within breaker-window-ticks trips its breaker: it stops
+ * running until an admin resets it with /nusantara breaker reset, or the
+ * script is reloaded.
+ *
+ * Main thread only. Handlers running on async event threads (chat) are not
+ * measured, as they do not cost server ticks.
+ *
+ * @author crow6980
+ */
+public final class ExecutionBudget {
+
+    public enum OverBudget { SKIP, DEFER }
+
+    private final NusantaraScript plugin;
+    private final ServerClock clock;
+
+    // Keys are the compiled handlers of the loaded scripts; a reload drops them with their accounts
+    private final Map<CompiledHandler, Account> handlers = new WeakHashMap<>();
+    // Keyed by file name, so these go explicitly when a script is unloaded (see forgetScript)
+    private final Map<String, Account> scripts = new HashMap<>();
+
+    private boolean enabled;
+    private long handlerBudgetNanos;
+    private long scriptBudgetNanos;
+    private OverBudget overBudget;
+    private int strikeLimit;
+    private int strikeWindowTicks;
+
+    public ExecutionBudget(NusantaraScript plugin) {
+        this(plugin, plugin.getConfig(), ServerClock.BUKKIT);
+    }
+
+    ExecutionBudget(NusantaraScript plugin, ConfigurationSection config, ServerClock clock) {
+        this.plugin = plugin;
+        this.clock = clock;
+        reload(config);
+    }
+
+    /**
+     * Reads the execution.budget settings
+     */
+    public void reload(ConfigurationSection config) {
+        enabled = config.getBoolean("execution.budget.enabled", true);
+        handlerBudgetNanos = millisToNanos(config.getDouble("execution.budget.handler-ms", 5.0));
+        scriptBudgetNanos = millisToNanos(config.getDouble("execution.budget.script-ms", 10.0));
+        strikeLimit = Math.max(1, config.getInt("execution.budget.breaker-strikes", 5));
+        strikeWindowTicks = Math.max(1, config.getInt("execution.budget.breaker-window-ticks", 1200));
+
+        String mode = config.getString("execution.budget.over-budget", "skip");
+        try {
+            overBudget = OverBudget.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("execution.budget.over-budget tidak dikenal: " + mode + " (pakai skip)");
+            overBudget = OverBudget.SKIP;
+        }
+    }
+
+    // ==================== DISPATCH ====================
+
+    /**
+     * The account of a handler about to run
+     * @return null if budgets are off or the caller is not the main thread (then nothing is measured)
+     */
+    public Account account(CompiledHandler handler) {
+        if (!enabled || !clock.isPrimaryThread()) return null;
+        Account account = handlers.get(handler);
+        if (account == null) {
+            Account script = scripts.computeIfAbsent(handler.getScriptName(), name -> new Account(name, null));
+            account = new Account(handler.getScriptName() + ":" + handler.getLineNumber()
+                    + " (" + handler.getEventType() + ")", script);
+            handlers.put(handler, account);
+        }
+        return account;
+    }
+
+    /**
+     * True if the handler or its script already used its budget in this tick
+     */
+    public boolean isOverBudget(Account account) {
+        int tick = clock.getCurrentTick();
+        return account.used(tick) >= handlerBudgetNanos || account.script.used(tick) >= scriptBudgetNanos;
+    }
+
+    public OverBudget getOverBudget() {
+        return overBudget;
+    }
+
+    /**
+     * Adds the time of one run; trips the breaker on too many over-budget ticks
+     */
+    public void record(Account account, long nanos) {
+        int tick = clock.getCurrentTick();
+        account.add(tick, nanos);
+        account.script.add(tick, nanos);
+
+        if (account.usedNanos > handlerBudgetNanos) strike(account, tick);
+    }
+
+    /**
+     * Counts a run that was deferred because of the budget. A handler over its own
+     * budget gets a strike, so one that always is trips its breaker instead of staying
+     * deferred forever; a handler only held back by its script's budget does not, the
+     * deferral is counted on the script instead.
+     */
+    public void recordDeferred(Account account) {
+        int tick = clock.getCurrentTick();
+        if (account.used(tick) >= handlerBudgetNanos) {
+            strike(account, tick);
+        } else {
+            account.script.deferred++;
+        }
+    }
+
+    private void strike(Account account, int tick) {
+        // At most one strike per tick
+        if (account.lastStrikeTick == tick) return;
+        if (tick - account.lastStrikeTick > strikeWindowTicks) account.strikes = 0;
+        account.strikes++;
+        account.lastStrikeTick = tick;
+
+        if (account.strikes >= strikeLimit && !account.tripped) {
+            account.tripped = true;
+            alert(account);
+        }
+    }
+
+    private void alert(Account account) {
+        String message = "§c[NusantaraScript] Handler " + account.name + " dimatikan: melewati batas waktu "
+                + account.strikes + "x. §7Reset: /nusantara breaker reset " + account.script.name;
+        plugin.getLogger().warning(message.replaceAll("§.", ""));
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (player.hasPermission("nusantarascript.admin")) {
+                player.sendMessage(message);
+            }
+        }
+    }
+
+    // ==================== BREAKERS ====================
+
+    /**
+     * Handlers with at least one strike, tripped ones first
+     */
+    public List<Account> getStruck() {
+        List<Account> struck = new ArrayList<>();
+        for (Account account : handlers.values()) {
+            if (account.strikes > 0 || account.tripped) struck.add(account);
+        }
+        struck.sort((a, b) -> a.tripped != b.tripped ? (a.tripped ? -1 : 1) : Integer.compare(b.strikes, a.strikes));
+        return struck;
+    }
+
+    /**
+     * Closes the breakers of one script ("file.ns"), one handler ("file.ns:12") or all of them (null)
+     * @return The number of handlers reset
+     */
+    public int reset(String target) {
+        int count = 0;
+        for (Map.Entry<CompiledHandler, Account> entry : handlers.entrySet()) {
+            CompiledHandler handler = entry.getKey();
+            if (target != null && !target.equalsIgnoreCase(handler.getScriptName())
+                    && !target.equalsIgnoreCase(handler.getScriptName() + ":" + handler.getLineNumber())) {
+                continue;
+            }
+            Account account = entry.getValue();
+            if (account.tripped || account.strikes > 0) count++;
+            account.tripped = false;
+            account.strikes = 0;
+        }
+        for (Map.Entry<String, Account> entry : scripts.entrySet()) {
+            if (target == null || target.equalsIgnoreCase(entry.getKey())) entry.getValue().deferred = 0;
+        }
+        return count;
+    }
+
+    /**
+     * Scripts whose budget held back handler runs, most deferrals first
+     */
+    public List<Account> getDeferredScripts() {
+        List<Account> deferred = new ArrayList<>();
+        for (Account account : scripts.values()) {
+            if (account.deferred > 0) deferred.add(account);
+        }
+        deferred.sort((a, b) -> Long.compare(b.deferred, a.deferred));
+        return deferred;
+    }
+
+    // ==================== SCRIPTS ====================
+
+    /**
+     * Drops the account of a script that was unloaded or is about to be reloaded.
+     * Handler accounts need no cleanup, they go with their handlers.
+     */
+    public void forgetScript(String scriptName) {
+        scripts.remove(scriptName);
+    }
+
+    /**
+     * Drops every script account, for a full reload
+     */
+    public void forgetAll() {
+        scripts.clear();
+    }
+
+    private static long millisToNanos(double millis) {
+        return (long) (Math.max(0, millis) * 1_000_000L);
+    }
+
+    /**
+     * Time used in the current tick by one handler or one script
+     */
+    public static final class Account {
+        private final String name;
+        private final Account script; // null for a script account
+
+        private int tick;
+        private long usedNanos;
+        private int strikes;
+        private long deferred; // script accounts: runs deferred because of the script budget
+        private int lastStrikeTick = Integer.MIN_VALUE / 2;
+        private boolean tripped;
+
+        private Account(String name, Account script) {
+            this.name = name;
+            this.script = script;
+        }
+
+        private long used(int now) {
+            return tick == now ? usedNanos : 0;
+        }
+
+        private void add(int now, long nanos) {
+            if (tick != now) {
+                tick = now;
+                usedNanos = 0;
+            }
+            usedNanos += nanos;
+        }
+
+        public String getName() { return name; }
+        public int getStrikes() { return strikes; }
+        public long getDeferred() { return deferred; }
+        public boolean isTripped() { return tripped; }
+    }
+}
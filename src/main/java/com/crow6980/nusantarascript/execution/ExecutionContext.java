@@ -0,0 +1,328 @@
+package com.crow6980.nusantarascript.execution;
+
+import com.crow6980.nusantarascript.manager.VariableManager;
+import net.kyori.adventure.text.Component;
+import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Values available to a running handler or command.
+ *
+ * Replaces the old Map&lt;String, Object&gt; context. Every value a listener can
+ * provide has its own typed field, and placeholders like {arg1} or {damage}
+ * are resolved to a {@link Key} when the script is compiled, so reading them
+ * while an event runs needs no hashing, casting or boxing.
+ *
+ * Script-local variables ({_name}) live in an Object array. The compiler
+ * gives every local name of a handler or command a fixed index, and
+ * {@link #resetLocals(int)} clears them before each run.
+ *
+ * Main-thread events reuse contexts from a {@link ContextPool}; a context
+ * must not be kept after the dispatch that received it has returned.
+ *
+ * @author crow6980
+ */
+public final class ExecutionContext {
+
+    private static final String[] NO_ARGS = new String[0];
+    private static final Object[] NO_LOCALS = new Object[0];
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final double[] NO_NUMBERS = new double[0];
+    private static final Object NUMBER = new Object(); // local slot marker: the value is in localNumbers
+
+    private Player player;
+    private Event event;
+    private Block block;
+    private String message;
+    private double damage = Double.NaN; // NaN: not a damage event
+    private String cause;
+    private CommandSender sender;
+    private String[] args = NO_ARGS;
+    private Object[] argValues = NO_VALUES; // typed command arguments, see ArgumentSchema
+    private VariableManager variables;
+    private Object[] locals = NO_LOCALS;
+    private double[] localNumbers = NO_NUMBERS; // values of the locals marked NUMBER
+    private Outbox outbox; // non-null while the dispatch collects its messages
+    private final List<Component> pendingMessages = new ArrayList<>(4);
+
+    public ExecutionContext(Player player, Event event) {
+        this.player = player;
+        this.event = event;
+    }
+
+    // ==================== FIXED SLOTS ====================
+
+    public Player getPlayer() { return player; }
+    public Event getEvent() { return event; }
+    public Block getBlock() { return block; }
+    public String getMessage() { return message; }
+    public double getDamage() { return damage; }
+    public String getCause() { return cause; }
+    public CommandSender getSender() { return sender; }
+    public String[] getArgs() { return args; }
+    public Object[] getArgValues() { return argValues; }
+    public VariableManager getVariables() { return variables; }
+
+    public void setPlayer(Player player) { this.player = player; }
+    public void setEvent(Event event) { this.event = event; }
+    public void setBlock(Block block) { this.block = block; }
+    public void setMessage(String message) { this.message = message; }
+    public void setDamage(double damage) { this.damage = damage; }
+    public void setCause(String cause) { this.cause = cause; }
+    public void setSender(CommandSender sender) { this.sender = sender; }
+    public void setArgs(String[] args) { this.args = args != null ? args : NO_ARGS; }
+    public void setArgValues(Object[] argValues) { this.argValues = argValues != null ? argValues : NO_VALUES; }
+    public void setVariables(VariableManager variables) { this.variables = variables; }
+
+    /**
+     * Resets every slot so a pooled context can be reused.
+     * Keeps the locals array, but drops the references it holds.
+     */
+    public void clear() {
+        player = null;
+        event = null;
+        block = null;
+        message = null;
+        damage = Double.NaN;
+        cause = null;
+        sender = null;
+        args = NO_ARGS;
+        argValues = NO_VALUES;
+        variables = null;
+        Arrays.fill(locals, null);
+        outbox = null;
+        pendingMessages.clear();
+    }
+
+    /**
+     * A new context with the same fixed slots, no locals and no outbox, for work that
+     * runs after this (possibly pooled) context has been released
+     */
+    public ExecutionContext copy() {
+        ExecutionContext copy = new ExecutionContext(player, event);
+        copy.block = block;
+        copy.message = message;
+        copy.damage = damage;
+        copy.cause = cause;
+        copy.sender = sender;
+        copy.args = args;
+        copy.argValues = argValues;
+        copy.variables = variables;
+        return copy;
+    }
+
+    // ==================== MESSAGES ====================
+
+    /**
+     * Sends a message, or collects it for the outbox if it goes to the context player
+     * while the dispatch has one open (see {@link Outbox})
+     */
+    public void sendMessage(Player target, Component message) {
+        if (outbox != null && target == player) {
+            pendingMessages.add(message);
+        } else {
+            target.sendMessage(message);
+        }
+    }
+
+    /**
+     * Sends the collected messages now, e.g. before a broadcast so the player sees them in order
+     */
+    public void flushMessages() {
+        if (outbox != null) outbox.flush(this);
+    }
+
+    void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    List<Component> getPendingMessages() {
+        return pendingMessages;
+    }
+
+    // ==================== LOCALS ====================
+
+    /**
+     * Clears the first count local slots, growing the array if needed.
+     * Called before every handler run, so locals never leak between handlers.
+     */
+    public void resetLocals(int count) {
+        if (locals.length < count) {
+            locals = new Object[count];
+            localNumbers = new double[count];
+        } else {
+            Arrays.fill(locals, 0, count, null);
+        }
+    }
+
+    /**
+     * Boxes a number set with {@link #setLocalNumber}; prefer {@link #getLocalNumber} for those
+     */
+    public Object getLocal(int index) {
+        Object value = locals[index];
+        return value == NUMBER ? (Object) localNumbers[index] : value;
+    }
+
+    public void setLocal(int index, Object value) {
+        locals[index] = value;
+    }
+
+    /**
+     * Stores a number without boxing it, so a counter in a hot handler allocates nothing
+     */
+    public void setLocalNumber(int index, double value) {
+        locals[index] = NUMBER;
+        localNumbers[index] = value;
+    }
+
+    /**
+     * @return true if the local was last set with {@link #setLocalNumber}
+     */
+    public boolean hasLocalNumber(int index) {
+        return locals[index] == NUMBER;
+    }
+
+    /**
+     * Only meaningful when {@link #hasLocalNumber} is true
+     */
+    public double getLocalNumber(int index) {
+        return localNumbers[index];
+    }
+
+    // ==================== PLACEHOLDER KEYS ====================
+
+    /**
+     * True for {_name}: a variable that only lives while one handler or command runs
+     */
+    public static boolean isLocalName(String name) {
+        return name.length() > 1 && name.charAt(0) == '_';
+    }
+
+    /**
+     * A placeholder name resolved to a fixed slot of the context
+     */
+    public static final class Key {
+
+        private enum Slot { PLAYER, EVENT, BLOCK, MESSAGE, DAMAGE, CAUSE, SENDER, ARG, ARGS_COUNT, ALL_ARGS, CORRECT_TOOL }
+
+        private final Slot slot;
+        private final int argIndex;
+
+        private Key(Slot slot, int argIndex) {
+            this.slot = slot;
+            this.argIndex = argIndex;
+        }
+
+        /**
+         * Resolves a placeholder name at compile time
+         * @return The key, or null if the name is not a context value (then it is a script variable)
+         */
+        public static Key of(String name) {
+            switch (name) {
+                case "player": return new Key(Slot.PLAYER, 0);
+                case "event": return new Key(Slot.EVENT, 0);
+                case "block": return new Key(Slot.BLOCK, 0);
+                case "message": return new Key(Slot.MESSAGE, 0);
+                case "damage": return new Key(Slot.DAMAGE, 0);
+                case "cause": return new Key(Slot.CAUSE, 0);
+                case "sender": return new Key(Slot.SENDER, 0);
+                case "args_count": return new Key(Slot.ARGS_COUNT, 0);
+                case "all_args": return new Key(Slot.ALL_ARGS, 0);
+                case "alat_benar": return new Key(Slot.CORRECT_TOOL, 0);
+                default: break;
+            }
+            if (name.startsWith("arg") && name.length() > 3) {
+                try {
+                    int index = Integer.parseInt(name.substring(3));
+                    if (index > 0) return new Key(Slot.ARG, index - 1);
+                } catch (NumberFormatException ignored) {
+                    // argX is an ordinary variable name
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return The value, or null if the running event does not provide it
+         */
+        public Object get(ExecutionContext context) {
+            return switch (slot) {
+                case PLAYER -> context.player;
+                case EVENT -> context.event;
+                case BLOCK -> context.block;
+                case MESSAGE -> context.message;
+                case DAMAGE -> Double.isNaN(context.damage) ? null : context.damage;
+                case CAUSE -> context.cause;
+                case SENDER -> context.sender;
+                case ARG -> argIndex < context.args.length ? context.args[argIndex] : null;
+                case ARGS_COUNT -> context.sender != null ? context.args.length : null;
+                case ALL_ARGS -> context.sender != null ? String.join(" ", context.args) : null;
+                case CORRECT_TOOL -> correctTool(context);
+            };
+        }
+
+        /**
+         * Numeric value without boxing where the slot is numeric
+         * @return NaN if the value is missing or not a number
+         */
+        public double number(ExecutionContext context) {
+            if (slot == Slot.DAMAGE) return context.damage;
+            if (slot == Slot.ARGS_COUNT) return context.sender != null ? context.args.length : Double.NaN;
+            if (slot == Slot.ARG && argIndex < context.argValues.length
+                    && context.argValues[argIndex] instanceof Double number) {
+                return number; // angka argument, parsed once by ArgumentSchema
+            }
+            Object value = get(context);
+            if (value == null) return Double.NaN;
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        /**
+         * Appends the value to a message without boxing numbers
+         * @return false if the running event does not provide the value
+         */
+        public boolean appendTo(StringBuilder sb, ExecutionContext context) {
+            if (slot == Slot.DAMAGE) {
+                if (Double.isNaN(context.damage)) return false;
+                VariableManager.appendNumber(sb, context.damage);
+                return true;
+            }
+            if (slot == Slot.ARGS_COUNT) {
+                if (context.sender == null) return false;
+                sb.append(context.args.length);
+                return true;
+            }
+            if (slot == Slot.ALL_ARGS) {
+                if (context.sender == null) return false;
+                for (int i = 0; i < context.args.length; i++) {
+                    if (i > 0) sb.append(' ');
+                    sb.append(context.args[i]);
+                }
+                return true;
+            }
+            Object value = get(context);
+            if (value == null) return false;
+            sb.append(value);
+            return true;
+        }
+
+        private static Boolean correctTool(ExecutionContext context) {
+            if (context.block == null || context.player == null) return null;
+            return context.block.isPreferredTool(context.player.getInventory().getItemInMainHand());
+        }
+
+        @Override public boolean equals(Object o) { return o instanceof Key other && slot == other.slot && argIndex == other.argIndex; }
+        @Override public int hashCode() { return slot.hashCode() * 31 + argIndex; }
+        @Override public String toString() { return slot == Slot.ARG ? "arg" + (argIndex + 1) : slot.name().toLowerCase(); }
+    }
+}
@@ -0,0 +1,95 @@
+package com.crow6980.nusantarascript.execution;
+
+import com.crow6980.nusantarascript.NusantaraScript;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Work handed from async threads to the main thread.
+ *
+ * Any thread may {@link #submit} a task. A single repeating task drains the
+ * queue once per tick until the time budget is used up; whatever is left
+ * waits for the next tick. This replaces one scheduler task per chat message
+ * and bounds how much script work one tick can receive under load.
+ *
+ * A drain only runs the tasks that were queued when it started, so a task
+ * that queues itself again waits for the next tick.
+ *
+ * At least one task runs every tick, so a budget of 0 still makes progress.
+ *
+ * @author crow6980
+ */
+public final class MainThreadQueue {
+
+    private final NusantaraScript plugin;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile long budgetNanos;
+    private BukkitTask drainTask;
+
+    public MainThreadQueue(NusantaraScript plugin, double budgetMillis) {
+        this.plugin = plugin;
+        setBudget(budgetMillis);
+    }
+
+    /**
+     * Starts draining once per tick. Main thread only.
+     */
+    public void start() {
+        if (drainTask == null) {
+            drainTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stops draining and drops the tasks that did not run yet. Main thread only.
+     */
+    public void stop() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        tasks.clear();
+    }
+
+    /**
+     * Queues a task for the main thread. Safe to call from any thread.
+     */
+    public void submit(Runnable task) {
+        tasks.offer(task);
+    }
+
+    /**
+     * Sets the time the drain may spend per tick, in milliseconds
+     */
+    public void setBudget(double budgetMillis) {
+        this.budgetNanos = (long) (Math.max(0, budgetMillis) * 1_000_000L);
+    }
+
+    /**
+     * Tasks waiting for a later tick
+     */
+    public int getPendingCount() {
+        return tasks.size();
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + budgetNanos;
+        int remaining = tasks.size();
+        Runnable task;
+        do {
+            if (remaining-- <= 0) return;
+            task = tasks.poll();
+            if (task == null) return;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("Error menjalankan tugas skrip di main thread: " + e.getMessage());
+                if (plugin.isDebugEnabled()) {
+                    e.printStackTrace();
+                }
+            }
+        } while (System.nanoTime() < deadline);
+    }
+}
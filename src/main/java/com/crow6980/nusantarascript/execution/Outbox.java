@@ -0,0 +1,110 @@
+package com.crow6980.nusantarascript.execution;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Coalesces the kirim messages of one dispatch into a single chat message.
+ *
+ * While a dispatch runs, its context collects every message sent to its
+ * player (see {@link ExecutionContext#sendMessage}). When the dispatch ends
+ * they are joined with newlines and sent as one component, so a welcome
+ * banner of ten lines is one packet instead of ten.
+ *
+ * Optionally, a flush that is exactly the same as the previous one sent to
+ * that player within execution.outbox.duplicate-window-ms is dropped, which
+ * keeps handlers that fire in quick succession (chat spam, repeated block
+ * breaks) from repeating the same text. Off by default (0), since it also
+ * drops repeats a script sends on purpose.
+ *
+ * Safe to use from any thread: a context belongs to one thread, and the
+ * per-player history is synchronized.
+ *
+ * @author crow6980
+ */
+public final class Outbox {
+
+    // Keyed by the Player object, so entries of players that left are collected
+    private final Map<Player, Sent> lastSent = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private volatile boolean enabled;
+    private volatile long duplicateWindowMillis;
+
+    public Outbox(ConfigurationSection config) {
+        reload(config);
+    }
+
+    /**
+     * Reads the execution.outbox settings
+     */
+    public void reload(ConfigurationSection config) {
+        enabled = config.getBoolean("execution.outbox.enabled", true);
+        duplicateWindowMillis = Math.max(0, config.getLong("execution.outbox.duplicate-window-ms", 0));
+        lastSent.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts collecting the messages of a dispatch in its context
+     */
+    public void open(ExecutionContext context) {
+        if (enabled) context.setOutbox(this);
+    }
+
+    /**
+     * Sends the messages collected in the context as one component and stops collecting
+     */
+    public void close(ExecutionContext context) {
+        flush(context);
+        context.setOutbox(null);
+    }
+
+    /**
+     * Sends the messages collected so far, keeping the context collecting
+     */
+    void flush(ExecutionContext context) {
+        List<Component> pending = context.getPendingMessages();
+        if (pending.isEmpty()) return;
+
+        Player player = context.getPlayer();
+        Component message = pending.size() == 1
+                ? pending.get(0)
+                : Component.join(JoinConfiguration.newlines(), pending);
+        pending.clear();
+        if (player == null || isDuplicate(player, message)) return;
+        player.sendMessage(message);
+    }
+
+    private boolean isDuplicate(Player player, Component message) {
+        long window = duplicateWindowMillis;
+        if (window == 0) return false;
+
+        long now = System.currentTimeMillis();
+        synchronized (lastSent) {
+            Sent previous = lastSent.get(player);
+            if (previous != null && now - previous.at < window && previous.message.equals(message)) return true;
+            lastSent.put(player, new Sent(message, now));
+            return false;
+        }
+    }
+
+    private static final class Sent {
+        private final Component message;
+        private final long at;
+
+        Sent(Component message, long at) {
+            this.message = message;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.crow6980.nusantarascript.execution;
+
+import org.bukkit.Bukkit;
+
+/**
+ * The server thread and tick, as the dispatch path reads them.
+ *
+ * {@link #BUKKIT} asks the running server. Tests that drive the executor
+ * without a server pass their own.
+ *
+ * @author crow6980
+ */
+interface ServerClock {
+
+    ServerClock BUKKIT = new ServerClock() {
+        @Override public boolean isPrimaryThread() { return Bukkit.isPrimaryThread(); }
+        @Override public int getCurrentTick() { return Bukkit.getCurrentTick(); }
+    };
+
+    boolean isPrimaryThread();
+
+    int getCurrentTick();
+}
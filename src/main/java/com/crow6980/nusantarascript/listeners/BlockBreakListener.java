@@ -1,11 +1,11 @@
 package com.crow6980.nusantarascript.listeners;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.registry.EventRegistry;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
-import java.util.HashMap;
-import java.util.Map;
 
 public class BlockBreakListener implements Listener {
 
@@ -22,16 +22,14 @@ public class BlockBreakListener implements Listener {
         // Fetch handlers for BLOCK_BREAK
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.BLOCK_BREAK);
         
-        if (handlers == null || handlers.isEmpty()) return;
+        if (handlers.length == 0) return;
 
         // Prepare context
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("block", event.getBlock());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
+        context.setBlock(event.getBlock());
         // 'alat_benar' check logic in executor will look at the player's item in hand via this context
 
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.executeHandler(handler, context);
             
             // If a script action called "batalkan event", the executor should 
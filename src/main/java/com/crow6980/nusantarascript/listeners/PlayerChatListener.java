@@ -1,11 +1,11 @@
 package com.crow6980.nusantarascript.listeners;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.registry.EventRegistry;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
-import java.util.HashMap;
-import java.util.Map;
 
 public class PlayerChatListener implements Listener {
 
@@ -23,15 +23,13 @@ public class PlayerChatListener implements Listener {
         // Fetch handlers for PLAYER_CHAT
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.PLAYER_CHAT);
         
-        if (handlers == null || handlers.isEmpty()) return;
+        if (handlers.length == 0) return;
 
         // Prepare context
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("message", event.getMessage());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
+        context.setMessage(event.getMessage());
 
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.executeHandler(handler, context);
             
             // Note: If the script modifies the message or cancels the event,
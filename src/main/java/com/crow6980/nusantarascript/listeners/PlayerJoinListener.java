@@ -1,11 +1,11 @@
 package com.crow6980.nusantarascript.listeners;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.registry.EventRegistry;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
-import java.util.HashMap;
-import java.util.Map;
 
 public class PlayerJoinListener implements Listener {
 
@@ -22,15 +22,13 @@ public class PlayerJoinListener implements Listener {
         // 1. Get all handlers for PLAYER_JOIN from our scripts
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.PLAYER_JOIN);
         
-        if (handlers.isEmpty()) return;
+        if (handlers.length == 0) return;
 
         // 2. Prepare the context (variables like %player%)
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
 
         // 3. Execute each script handler
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.executeHandler(handler, context);
         }
     }
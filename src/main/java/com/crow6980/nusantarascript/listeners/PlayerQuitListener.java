@@ -1,11 +1,11 @@
 package com.crow6980.nusantarascript.listeners;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.registry.EventRegistry;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
-import java.util.HashMap;
-import java.util.Map;
 
 public class PlayerQuitListener implements Listener {
 
@@ -22,15 +22,13 @@ public class PlayerQuitListener implements Listener {
         // Fetch handlers for PLAYER_QUIT event type
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.PLAYER_QUIT);
         
-        if (handlers == null || handlers.isEmpty()) return;
+        if (handlers.length == 0) return;
 
         // Prepare context for the script
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
 
         // Run the script actions
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.executeHandler(handler, context);
         }
     }
@@ -0,0 +1,182 @@
+package com.crow6980.nusantarascript.manager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings of the last script load, shown by /nusantara timings load.
+ *
+ * Every file gets one {@link FileTiming} with the nanoseconds spent in each
+ * {@link Stage} and the bytes allocated while loading it. Read, parse and
+ * compile stages are measured on the loader thread that prepared the file;
+ * link and register are measured on the main thread. Hot reloads replace the
+ * entry of the reloaded file.
+ *
+ * @author crow6980
+ */
+public class LoadTimings {
+
+    /**
+     * Load stages in pipeline order
+     */
+    public enum Stage {
+        READ,       // read file, hash, decode
+        CACHE,      // parse cache lookup and store
+        TOKENIZE,   // ScriptLexer
+        PARSE,      // ScriptParser
+        COMPILE,    // ScriptCompiler (incl. optimizer and sound/effect/item resolution)
+        LINK,       // WorldLinker
+        REGISTER    // event and command registries
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = allocationSupported();
+
+    private final Map<String, FileTiming> files = new LinkedHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+    private long wallNanos;
+
+    /**
+     * Records the finished timing of one file. Main thread only.
+     */
+    public void add(FileTiming timing) {
+        files.put(timing.getFilename(), timing);
+    }
+
+    /**
+     * Sets the wall-clock time of the whole load
+     */
+    public void finish(long wallNanos) {
+        this.wallNanos = wallNanos;
+    }
+
+    public Collection<FileTiming> getFiles() {
+        return files.values();
+    }
+
+    /**
+     * Files sorted by total time, slowest first
+     */
+    public List<FileTiming> getSlowestFiles(int limit) {
+        List<FileTiming> sorted = new ArrayList<>(files.values());
+        sorted.sort(Comparator.comparingLong(FileTiming::getTotalNanos).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /**
+     * Sum of one stage over all files
+     */
+    public long getStageNanos(Stage stage) {
+        long total = 0;
+        for (FileTiming timing : files.values()) total += timing.getNanos(stage);
+        return total;
+    }
+
+    public long getAllocatedBytes() {
+        long total = 0;
+        for (FileTiming timing : files.values()) total += Math.max(0, timing.getAllocatedBytes());
+        return total;
+    }
+
+    public int getCacheHits() {
+        int hits = 0;
+        for (FileTiming timing : files.values()) if (timing.isCacheHit()) hits++;
+        return hits;
+    }
+
+    public long getWallNanos() { return wallNanos; }
+    public long getStartedAt() { return startedAt; }
+
+    // ==================== ALLOCATION ====================
+
+    /**
+     * Whether {@link #allocatedBytes()} returns real numbers on this JVM
+     */
+    public static boolean isAllocationSupported() {
+        return ALLOCATION_SUPPORTED;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or 0 if the JVM cannot tell
+     */
+    public static long allocatedBytes() {
+        return ALLOCATION_SUPPORTED
+                ? ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes()
+                : 0;
+    }
+
+    private static boolean allocationSupported() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean sun)) return false;
+        try {
+            if (!sun.isThreadAllocatedMemorySupported()) return false;
+            if (!sun.isThreadAllocatedMemoryEnabled()) sun.setThreadAllocatedMemoryEnabled(true);
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stage timings of a single file. Filled by one thread at a time.
+     */
+    public static final class FileTiming {
+        private final String filename;
+        private final long[] nanos = new long[Stage.values().length];
+        private long allocatedBytes;
+        private boolean cacheHit;
+        private int handlers;
+        private int commands;
+
+        public FileTiming(String filename) {
+            this.filename = filename;
+        }
+
+        /**
+         * Adds the time since startNanos to a stage
+         * @return The current System.nanoTime(), to start the next stage
+         */
+        public long record(Stage stage, long startNanos) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - startNanos;
+            return now;
+        }
+
+        public void addAllocated(long bytes) { allocatedBytes += bytes; }
+        public void setCacheHit(boolean cacheHit) { this.cacheHit = cacheHit; }
+
+        public void setCounts(int handlers, int commands) {
+            this.handlers = handlers;
+            this.commands = commands;
+        }
+
+        public String getFilename() { return filename; }
+        public long getNanos(Stage stage) { return nanos[stage.ordinal()]; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public boolean isCacheHit() { return cacheHit; }
+        public int getHandlers() { return handlers; }
+        public int getCommands() { return commands; }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (long n : nanos) total += n;
+            return total;
+        }
+
+        /**
+         * The stage this file spent the most time in
+         */
+        public Stage getSlowestStage() {
+            Stage slowest = Stage.READ;
+            for (Stage stage : Stage.values()) {
+                if (getNanos(stage) > getNanos(slowest)) slowest = stage;
+            }
+            return slowest;
+        }
+    }
+}
@@ -1,28 +1,52 @@
 package com.crow6980.nusantarascript.manager;
 
 import com.crow6980.nusantarascript.NusantaraScript;
-import com.crow6980.nusantarascript.command.CustomCommand;
 import com.crow6980.nusantarascript.command.CustomCommandRegistry;
+import com.crow6980.nusantarascript.compiler.CompiledCommand;
+import com.crow6980.nusantarascript.compiler.CompiledScript;
+import com.crow6980.nusantarascript.compiler.ScriptCompiler;
+import com.crow6980.nusantarascript.manager.LoadTimings.FileTiming;
+import com.crow6980.nusantarascript.manager.LoadTimings.Stage;
+import com.crow6980.nusantarascript.parser.ScriptCache;
+import com.crow6980.nusantarascript.parser.ScriptLexer;
 import com.crow6980.nusantarascript.parser.ScriptParser;
 import com.crow6980.nusantarascript.registry.EventRegistry;
 import com.crow6980.nusantarascript.script.Script;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 
 /**
  * STEP 2: Script Manager & File Reader
  * 
  * Responsible for:
  * - Discovering .ns files in the scripts directory
- * - Reading script files line by line
- * - Passing file contents to the parser
+ * - Reading script files
+ * - Passing file contents to the parser, or reusing the cached parse of unchanged files
+ * - Compiling parsed scripts into executable instructions
  * - Managing loaded scripts
+ * - Swapping single scripts in and out for hot reload
+ * - Recording per-file, per-stage load timings ({@link LoadTimings})
  * 
  * @author crow6980
  */
@@ -43,114 +67,349 @@ public class ScriptManager {
     private final EventRegistry eventRegistry;
     private final CustomCommandRegistry customCommandRegistry;
     private final ScriptParser parser;
+    private final ScriptCompiler compiler;
+    private final ScriptCache cache;
+    private volatile boolean cacheEnabled;
     
     // Map to store loaded scripts: filename -> Script object
     private final Map<String, Script> loadedScripts;
     
+    // filename -> content hash of the last version seen (read by the watcher thread)
+    private final Map<String, String> scriptHashes;
+    
+    // Timings of the last full load, updated by hot reloads. Main thread only.
+    private LoadTimings timings = new LoadTimings();
+    
     public ScriptManager(NusantaraScript plugin, File scriptsFolder, EventRegistry eventRegistry, CustomCommandRegistry customCommandRegistry) {
         this.plugin = plugin;
         this.scriptsFolder = scriptsFolder;
         this.eventRegistry = eventRegistry;
         this.customCommandRegistry = customCommandRegistry;
         this.parser = new ScriptParser(plugin);
-        this.loadedScripts = new HashMap<>();
+        this.compiler = new ScriptCompiler(plugin);
+        this.cache = new ScriptCache(new File(plugin.getDataFolder(), "cache"));
+        this.loadedScripts = new TreeMap<>();
+        this.scriptHashes = new ConcurrentHashMap<>();
     }
     
     /**
      * Loads all .ns files from the scripts directory
+     * 
+     * Reading, parsing and compiling run in parallel on a worker pool.
+     * Registration with the EventRegistry and CustomCommandRegistry stays on
+     * the calling (main) thread and always happens in file name order, so the
+     * handler order and the log output do not depend on thread timing.
+     * 
      * @return Number of scripts successfully loaded
      */
     public int loadAllScripts() {
         // Clear previously loaded scripts
+        long loadStart = System.nanoTime();
         loadedScripts.clear();
+        scriptHashes.clear();
+        timings = new LoadTimings();
+        compiler.reloadSettings();
+        cacheEnabled = plugin.getConfig().getBoolean("cache.enabled", true);
         
         // Find all .ns files
         File[] scriptFiles = scriptsFolder.listFiles((dir, name) -> name.endsWith(".ns"));
         
         if (scriptFiles == null || scriptFiles.length == 0) {
             plugin.getLogger().info("No .ns script files found in " + scriptsFolder.getPath());
+            timings.finish(System.nanoTime() - loadStart);
             return 0;
         }
         
+        Arrays.sort(scriptFiles, Comparator.comparing(File::getName));
+        
+        // Read, parse and compile every file off the main thread
+        List<LoadResult> results = prepareAll(scriptFiles);
+        
         int successCount = 0;
         
-        // Load each script file
-        for (File file : scriptFiles) {
+        // Register results in file order
+        for (LoadResult result : results) {
             try {
-                if (loadScript(file)) {
+                if (registerScript(result)) {
                     successCount++;
                 }
             } catch (Exception e) {
-                plugin.getLogger().severe("Error loading script " + file.getName() + ": " + e.getMessage());
+                plugin.getLogger().severe("Error loading script " + result.file.getName() + ": " + e.getMessage());
                 e.printStackTrace();
             }
         }
         
+        // Drop Bukkit commands that no script declares anymore
+        customCommandRegistry.pruneBukkitCommands();
+        
+        // Drop cache entries of files that changed or no longer exist
+        if (cacheEnabled) {
+            cache.retain(scriptHashes.values());
+        }
+        
+        timings.finish(System.nanoTime() - loadStart);
         return successCount;
     }
     
     /**
-     * Loads a single script file
-     * @param file The .ns file to load
-     * @return true if loaded successfully
+     * Runs {@link #prepareScript(File)} for every file on a temporary worker pool
+     * @return One result per file, in the same order as the input
      */
-    private boolean loadScript(File file) {
-        plugin.getLogger().info("Loading script: " + file.getName());
+    private List<LoadResult> prepareAll(File[] scriptFiles) {
+        List<Callable<LoadResult>> tasks = new ArrayList<>(scriptFiles.length);
+        for (File file : scriptFiles) {
+            tasks.add(() -> prepareScript(file, null));
+        }
         
+        int parallelism = Math.max(1, Math.min(scriptFiles.length, Runtime.getRuntime().availableProcessors()));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<LoadResult> results = new ArrayList<>(scriptFiles.length);
         try {
-            // Read all lines from the file
-            List<String> lines = readScriptFile(file);
-            
-            if (lines.isEmpty()) {
-                plugin.getLogger().warning("Script " + file.getName() + " is empty, skipping...");
-                return false;
+            List<Future<LoadResult>> futures = pool.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(LoadResult.error(scriptFiles[i], null, e.getCause(), new FileTiming(scriptFiles[i].getName())));
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            plugin.getLogger().severe("Script loading was interrupted");
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+    
+    /**
+     * Reads, parses and compiles a single script file.
+     * Runs on a worker thread: must not touch the registries or log directly.
+     * 
+     * @param file The .ns file to load
+     * @param knownHash Content hash of the currently loaded version, or null
+     * @return The prepared script, or an "unchanged" result if the content hash matches knownHash
+     */
+    private LoadResult prepareScript(File file, String knownHash) {
+        FileTiming timing = new FileTiming(file.getName());
+        long allocatedStart = LoadTimings.allocatedBytes();
+        try {
+            return prepareScript(file, knownHash, timing);
+        } finally {
+            timing.addAllocated(LoadTimings.allocatedBytes() - allocatedStart);
+        }
+    }
+    
+    private LoadResult prepareScript(File file, String knownHash, FileTiming timing) {
+        String hash = null;
+        long t = System.nanoTime();
+        try {
+            // Read the raw file once: the bytes are hashed, then decoded into lines
+            byte[] content = readScriptFile(file);
+            hash = contentHash(content);
+            t = timing.record(Stage.READ, t);
             
-            // Parse the script content
-            Script script = parser.parse(file.getName(), lines);
-            
-            if (script == null) {
-                plugin.getLogger().warning("Failed to parse script: " + file.getName());
-                return false;
+            if (hash.equals(knownHash)) {
+                return LoadResult.unchanged(file, hash, timing);
             }
             
-            // Store the loaded script
-            loadedScripts.put(file.getName(), script);
+            // Unchanged since an earlier start: skip lexing and parsing
+            Script script = cacheEnabled ? cache.load(file.getName(), hash) : null;
+            t = timing.record(Stage.CACHE, t);
+            timing.setCacheHit(script != null);
             
-            // Register events used by this script
-            eventRegistry.registerScript(script);
-            
-            // Register custom commands from this script
-            for (CustomCommand command : script.getCustomCommands()) {
-                customCommandRegistry.registerCommand(command);
+            if (script == null) {
+                String source = decodeSource(content);
+                t = timing.record(Stage.READ, t);
+                
+                if (source.isEmpty()) {
+                    return LoadResult.failed(file, hash, Level.WARNING, "Script " + file.getName() + " is empty, skipping...", timing);
+                }
+                
+                // Parse the script content
+                List<ScriptLexer.Token> tokens = ScriptLexer.tokenize(source);
+                t = timing.record(Stage.TOKENIZE, t);
+                script = parser.parse(file.getName(), source, tokens);
+                t = timing.record(Stage.PARSE, t);
+                
+                if (script == null) {
+                    return LoadResult.failed(file, hash, Level.WARNING, "Failed to parse script: " + file.getName(), timing);
+                }
+                
+                if (cacheEnabled) {
+                    cache.store(hash, script);
+                    t = timing.record(Stage.CACHE, t);
+                }
             }
             
-            plugin.getLogger().info("Successfully loaded script: " + file.getName() + 
-                                   " (Events: " + script.getEventHandlers().size() + 
-                                   ", Commands: " + script.getCustomCommands().size() + ")");
-            
-            return true;
+            // Compile into executable instructions
+            CompiledScript compiled = compiler.compile(script);
+            timing.record(Stage.COMPILE, t);
+            return LoadResult.loaded(file, hash, script, compiled, timing);
             
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to read script file " + file.getName() + ": " + e.getMessage());
+            return LoadResult.failed(file, hash, Level.SEVERE, "Failed to read script file " + file.getName() + ": " + e.getMessage(), timing);
+        } catch (Exception e) {
+            return LoadResult.error(file, hash, e, timing);
+        }
+    }
+    
+    /**
+     * Registers a prepared script. Must run on the main thread.
+     * @return true if loaded successfully
+     */
+    private boolean registerScript(LoadResult result) {
+        long allocatedStart = LoadTimings.allocatedBytes();
+        try {
+            return registerScript(result, result.timing);
+        } finally {
+            result.timing.addAllocated(LoadTimings.allocatedBytes() - allocatedStart);
+            timings.add(result.timing);
+        }
+    }
+    
+    private boolean registerScript(LoadResult result, FileTiming timing) {
+        File file = result.file;
+        plugin.getLogger().info("Loading script: " + file.getName());
+        
+        // Remember the content even if it fails, so the watcher skips identical saves
+        if (result.hash != null) {
+            scriptHashes.put(file.getName(), result.hash);
+        }
+        
+        if (result.error != null) {
+            plugin.getLogger().severe("Error loading script " + file.getName() + ": " + result.error.getMessage());
+            result.error.printStackTrace();
+            return false;
+        }
+        if (result.compiled == null) {
+            plugin.getLogger().log(result.level, result.message);
             return false;
         }
+        
+        Script script = result.script;
+        CompiledScript compiled = result.compiled;
+        
+        for (String warning : compiled.getWarnings()) {
+            plugin.getLogger().warning(warning);
+        }
+        
+        // Link stage: bind world references now that we are on the main thread
+        long t = System.nanoTime();
+        plugin.getWorldLinker().link(compiled);
+        t = timing.record(Stage.LINK, t);
+        
+        // Store the loaded script
+        loadedScripts.put(file.getName(), script);
+        
+        // Register events used by this script
+        eventRegistry.registerScript(compiled);
+        
+        // Register custom commands from this script
+        for (CompiledCommand command : compiled.getCommands()) {
+            customCommandRegistry.registerCommand(command);
+        }
+        timing.record(Stage.REGISTER, t);
+        timing.setCounts(compiled.getHandlers().size(), compiled.getCommands().size());
+        
+        plugin.getLogger().info("Successfully loaded script: " + file.getName() + 
+                               " (Events: " + script.getEventHandlers().size() + 
+                               ", Commands: " + script.getCustomCommands().size() + ")");
+        
+        return true;
+    }
+    
+    /**
+     * Reads a script file
+     * 
+     * @param file The file to read
+     * @return Raw file content
+     */
+    private byte[] readScriptFile(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
     }
     
     /**
-     * Reads a script file and returns its lines
+     * Decodes raw script content
      * Handles:
      * - UTF-8 encoding for Indonesian characters
-     * - Preserves indentation for Phase 2 parser
-     * - Keeps comments for parser to handle
+     * - A leading byte order mark written by some Windows editors
      * 
-     * @param file The file to read
-     * @return List of all lines (parser will handle comments/empty lines)
+     * @return The whole file as one string (the lexer handles lines, comments and indentation)
+     */
+    private String decodeSource(byte[] content) {
+        String source = new String(content, StandardCharsets.UTF_8);
+        return source.startsWith("\uFEFF") ? source.substring(1) : source;
+    }
+    
+    /**
+     * SHA-256 of the raw file content, hex encoded
+     */
+    private static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    // ==================== HOT RELOAD ====================
+    
+    /**
+     * Re-prepares a single changed file and swaps it in on the main thread.
+     * Called from the {@link ScriptWatcher} thread. Nothing happens if the
+     * content hash did not change; a deleted file is unloaded.
+     */
+    public void hotReload(File file) {
+        if (!plugin.isEnabled()) return;
+        
+        if (!file.exists()) {
+            if (scriptHashes.containsKey(file.getName())) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> unloadScript(file.getName()));
+            }
+            return;
+        }
+        
+        long start = System.nanoTime();
+        LoadResult result = prepareScript(file, scriptHashes.get(file.getName()));
+        if (result.unchanged) return;
+        
+        plugin.getServer().getScheduler().runTask(plugin, () -> swapScript(result, start));
+    }
+    
+    /**
+     * Replaces the handlers and commands of one script. Must run on the main thread.
+     * If the new version fails to load, the previous version stays active.
+     */
+    private void swapScript(LoadResult result, long startNanos) {
+        String name = result.file.getName();
+        
+        if (result.compiled == null) {
+            registerScript(result); // logs the failure and records the hash
+            if (loadedScripts.containsKey(name)) {
+                plugin.getLogger().warning("Keeping previous version of " + name);
+            }
+            return;
+        }
+        
+        eventRegistry.unregisterScript(name);
+        customCommandRegistry.unregisterScript(name);
+        registerScript(result);
+        customCommandRegistry.pruneBukkitCommands();
+        
+        plugin.getLogger().info("Hot reloaded " + name + " (" + (System.nanoTime() - startNanos) / 1_000_000.0 + "ms)");
+    }
+    
+    /**
+     * Removes a deleted script. Must run on the main thread.
      */
-    private List<String> readScriptFile(File file) throws IOException {
-        // Phase 2: Return all lines with original indentation
-        // The enhanced parser will handle comments and empty lines
-        return Files.readAllLines(file.toPath(), java.nio.charset.StandardCharsets.UTF_8);
+    private void unloadScript(String name) {
+        eventRegistry.unregisterScript(name);
+        customCommandRegistry.unregisterScript(name);
+        customCommandRegistry.pruneBukkitCommands();
+        loadedScripts.remove(name);
+        scriptHashes.remove(name);
+        plugin.getLogger().info("Unloaded deleted script: " + name);
     }
     
     /**
@@ -164,7 +423,22 @@ public class ScriptManager {
      * Gets all loaded scripts
      */
     public Map<String, Script> getLoadedScripts() {
-        return new HashMap<>(loadedScripts);
+        return new LinkedHashMap<>(loadedScripts);
+    }
+    
+    /**
+     * Names of all script files seen by the last load, including failed ones.
+     * Safe to call from any thread.
+     */
+    public Set<String> getKnownScriptNames() {
+        return Set.copyOf(scriptHashes.keySet());
+    }
+    
+    /**
+     * Timings of the last load. Main thread only.
+     */
+    public LoadTimings getTimings() {
+        return timings;
     }
     
     /**
@@ -173,4 +447,48 @@ public class ScriptManager {
     public int getLoadedScriptCount() {
         return loadedScripts.size();
     }
+    
+    /**
+     * Outcome of reading, parsing and compiling one file on a worker thread
+     */
+    private static class LoadResult {
+        final File file;
+        final String hash;
+        final boolean unchanged;
+        final Script script;
+        final CompiledScript compiled;
+        final Level level;
+        final String message;
+        final Throwable error;
+        final FileTiming timing;
+        
+        private LoadResult(File file, String hash, boolean unchanged, Script script, CompiledScript compiled,
+                           Level level, String message, Throwable error, FileTiming timing) {
+            this.file = file;
+            this.hash = hash;
+            this.unchanged = unchanged;
+            this.script = script;
+            this.compiled = compiled;
+            this.level = level;
+            this.message = message;
+            this.error = error;
+            this.timing = timing;
+        }
+        
+        static LoadResult loaded(File file, String hash, Script script, CompiledScript compiled, FileTiming timing) {
+            return new LoadResult(file, hash, false, script, compiled, null, null, null, timing);
+        }
+        
+        static LoadResult unchanged(File file, String hash, FileTiming timing) {
+            return new LoadResult(file, hash, true, null, null, null, null, null, timing);
+        }
+        
+        static LoadResult failed(File file, String hash, Level level, String message, FileTiming timing) {
+            return new LoadResult(file, hash, false, null, null, level, message, null, timing);
+        }
+        
+        static LoadResult error(File file, String hash, Throwable error, FileTiming timing) {
+            return new LoadResult(file, hash, false, null, null, null, null, error, timing);
+        }
+    }
 }
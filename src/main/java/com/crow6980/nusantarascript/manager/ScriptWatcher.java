@@ -0,0 +1,126 @@
+package com.crow6980.nusantarascript.manager;
+
+import com.crow6980.nusantarascript.NusantaraScript;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background watcher for the scripts folder (hot reload).
+ *
+ * Listens for created, modified and deleted .ns files. Editors usually fire
+ * several events per save, so changes are collected until the folder has been
+ * quiet for the debounce time, then each changed file is handed to
+ * {@link ScriptManager#hotReload(File)}. The manager compares content hashes,
+ * so saving a file without changes costs one read and one hash.
+ *
+ * @author crow6980
+ */
+public class ScriptWatcher implements Runnable {
+
+    private final NusantaraScript plugin;
+    private final ScriptManager scriptManager;
+    private final Path folder;
+    private final long debounceMillis;
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public ScriptWatcher(NusantaraScript plugin, ScriptManager scriptManager, File folder, long debounceMillis) {
+        this.plugin = plugin;
+        this.scriptManager = scriptManager;
+        this.folder = folder.toPath();
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Registers the folder with a WatchService and starts the watcher thread
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        folder.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        running = true;
+        thread = new Thread(this, "NusantaraScript-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+        plugin.getLogger().info("Hot reload aktif untuk folder: " + folder);
+    }
+
+    /**
+     * Stops the watcher thread and closes the WatchService
+     */
+    public void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {}
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        // Sorted so several files changed together reload in the same order as a full load
+        Set<String> pending = new TreeSet<>();
+
+        while (running) {
+            try {
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+
+                if (key == null) {
+                    // Quiet period over: apply the collected changes
+                    for (String name : pending) {
+                        scriptManager.hotReload(folder.resolve(name).toFile());
+                    }
+                    pending.clear();
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost: re-check everything, unchanged files are skipped by hash
+                        pending.addAll(scriptManager.getKnownScriptNames());
+                        File[] files = folder.toFile().listFiles((dir, name) -> name.endsWith(".ns"));
+                        if (files != null) {
+                            for (File file : files) pending.add(file.getName());
+                        }
+                        continue;
+                    }
+                    String name = event.context().toString();
+                    if (name.endsWith(".ns")) {
+                        pending.add(name);
+                    }
+                }
+
+                if (!key.reset()) {
+                    plugin.getLogger().warning("Folder skrip tidak bisa dipantau lagi, hot reload berhenti.");
+                    running = false;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                plugin.getLogger().severe("Hot reload error: " + e.getMessage());
+            }
+        }
+    }
+}
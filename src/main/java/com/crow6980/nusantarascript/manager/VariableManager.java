@@ -5,6 +5,7 @@ import com.crow6980.nusantarascript.NusantaraScript;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 import com.crow6980.nusantarascript.manager.VariablePersistence;
 
@@ -13,10 +14,18 @@ import com.crow6980.nusantarascript.manager.VariablePersistence;
  * 
  * Manages global and player-specific variables for scripts.
  * Variables are stored in-memory using HashMap structures.
+ *
+ * Numbers are held in a {@link NumberCell} with a primitive double, stored
+ * in the same map as text values. tambah/kurangi update the cell in place,
+ * and conditions and messages read the double directly, so a counter costs
+ * no Double allocation and no toString/parseDouble round trip. Switching a
+ * variable between text and number replaces its one map entry atomically,
+ * so async chat handlers writing it at the same time as the main thread
+ * cannot leave a stale number behind a newer text.
  * 
  * Variable Syntax:
  * - {variableName} for global variables
- * - {variableName.%player%} for player-specific variables
+ * - {variableName.%player%} for player-specific variables (%pemain% works too)
  * 
  * Examples:
  * - {serverStartTime}
@@ -28,8 +37,9 @@ import com.crow6980.nusantarascript.manager.VariablePersistence;
 public class VariableManager {
     
     private final NusantaraScript plugin;
-    private final Map<String, Object> globalVariables;
-    private final Map<String, Map<String, Object>> playerVariables;
+    // Values are a NumberCell or the text (any other object) of a variable
+    private final ConcurrentHashMap<String, Object> globalVariables;
+    private final Map<String, ConcurrentHashMap<String, Object>> playerVariables;
     private final VariablePersistence persistence;
     
     public VariableManager(NusantaraScript plugin) {
@@ -43,7 +53,10 @@ public class VariableManager {
          * Saves all variables to disk (variables.yml)
          */
         public void saveVariables() {
-            persistence.save(globalVariables, playerVariables);
+            Map<String, Object> global = snapshot(globalVariables);
+            Map<String, Map<String, Object>> player = new HashMap<>();
+            playerVariables.forEach((playerName, vars) -> player.put(playerName, snapshot(vars)));
+            persistence.save(global, player);
             plugin.getLogger().info("Variables saved to variables.yml");
         }
 
@@ -51,9 +64,49 @@ public class VariableManager {
          * Loads all variables from disk (variables.yml)
          */
         public void loadVariables() {
-            persistence.load(globalVariables, playerVariables);
+            Map<String, Object> global = new HashMap<>();
+            Map<String, Map<String, Object>> player = new HashMap<>();
+            persistence.load(global, player);
+
+            globalVariables.clear();
+            playerVariables.clear();
+            global.forEach(this::setGlobal);
+            int renamed = 0;
+            for (Map.Entry<String, Map<String, Object>> entry : player.entrySet()) {
+                String playerName = entry.getKey();
+                Map<String, Object> vars = entry.getValue();
+                for (Map.Entry<String, Object> var : vars.entrySet()) {
+                    String key = canonicalKey(var.getKey());
+                    if (key.equals(var.getKey())) {
+                        setPlayer(playerName, key, var.getValue());
+                    } else if (!key.isEmpty() && !vars.containsKey(key)) {
+                        setPlayer(playerName, key, var.getValue());
+                        renamed++;
+                    }
+                }
+            }
+            if (renamed > 0) {
+                plugin.getLogger().info("Variabel pemain dengan nama lama diganti namanya: " + renamed);
+            }
             plugin.getLogger().info("Variables loaded from variables.yml");
         }
+
+        /**
+         * The key {@link VariableRef} resolves a player variable name to, without empty
+         * dot parts. Older versions named {%player%.x} ".x", which scripts now read as
+         * "x"; the next save writes it back under the new key. A stray key that
+         * collides with one already saved under the new name is dropped.
+         */
+        static String canonicalKey(String key) {
+            if (key.indexOf('.') < 0) return key;
+            StringBuilder sb = new StringBuilder(key.length());
+            for (String part : key.split("\\.")) {
+                if (part.isEmpty()) continue;
+                if (sb.length() > 0) sb.append('.');
+                sb.append(part);
+            }
+            return sb.toString();
+        }
     
     /**
      * Sets a global variable
@@ -62,8 +115,14 @@ public class VariableManager {
      * @param value Variable value
      */
     public void setGlobal(String name, Object value) {
+        if (value instanceof Number number) {
+            setNumber(null, name, number.doubleValue());
+            return;
+        }
         globalVariables.put(name, value);
-        plugin.getLogger().fine("Set global variable: " + name + " = " + value);
+        if (plugin.getLogger().isLoggable(Level.FINE)) {
+            plugin.getLogger().fine("Set global variable: " + name + " = " + value);
+        }
     }
     
     /**
@@ -73,7 +132,7 @@ public class VariableManager {
      * @return Variable value, or null if not found
      */
     public Object getGlobal(String name) {
-        return globalVariables.get(name);
+        return valueOf(globalVariables.get(name));
     }
     
     /**
@@ -84,9 +143,14 @@ public class VariableManager {
      * @param value Variable value
      */
     public void setPlayer(String playerName, String variableName, Object value) {
-        playerVariables.computeIfAbsent(playerName, k -> new ConcurrentHashMap<>())
-                       .put(variableName, value);
-        plugin.getLogger().fine("Set player variable: " + playerName + "." + variableName + " = " + value);
+        if (value instanceof Number number) {
+            setNumber(playerName, variableName, number.doubleValue());
+            return;
+        }
+        variables(playerName, true).put(variableName, value);
+        if (plugin.getLogger().isLoggable(Level.FINE)) {
+            plugin.getLogger().fine("Set player variable: " + playerName + "." + variableName + " = " + value);
+        }
     }
     
     /**
@@ -101,7 +165,7 @@ public class VariableManager {
         if (playerVars == null) {
             return null;
         }
-        return playerVars.get(variableName);
+        return valueOf(playerVars.get(variableName));
     }
     
     /**
@@ -144,18 +208,21 @@ public class VariableManager {
      * @param amount Amount to add
      */
     public void add(String playerName, String variableName, double amount) {
-        if (playerName == null) {
-            // Global variable
-            Object current = globalVariables.get(variableName);
-            double newValue = (current instanceof Number) ? ((Number) current).doubleValue() + amount : amount;
-            globalVariables.put(variableName, newValue);
+        ConcurrentHashMap<String, Object> vars = variables(playerName, true);
+        Object current = vars.get(variableName);
+        NumberCell cell;
+        if (current instanceof NumberCell existing) {
+            cell = existing;
         } else {
-            // Player variable
-            Map<String, Object> playerVars = playerVariables.computeIfAbsent(playerName, k -> new ConcurrentHashMap<>());
-            Object current = playerVars.get(variableName);
-            double newValue = (current instanceof Number) ? ((Number) current).doubleValue() + amount : amount;
-            playerVars.put(variableName, newValue);
+            // First write as a number: start from a numeric text value, like "5" set by setel
+            cell = (NumberCell) vars.compute(variableName, (name, previous) -> {
+                if (previous instanceof NumberCell number) return number;
+                double start = previous != null ? parseNumber(previous) : 0;
+                return new NumberCell(Double.isNaN(start) ? 0 : start);
+            });
         }
+        // The cell adds atomically, so chat handlers running off the main thread cannot lose updates
+        cell.add(amount);
     }
     
     /**
@@ -169,11 +236,116 @@ public class VariableManager {
         add(playerName, variableName, -amount);
     }
     
+    /**
+     * Stores a number without boxing (setel with a constant number, loaded numbers)
+     *
+     * @param playerName Player name (null for global)
+     */
+    public void setNumber(String playerName, String variableName, double value) {
+        ConcurrentHashMap<String, Object> vars = variables(playerName, true);
+        if (vars.get(variableName) instanceof NumberCell cell) {
+            cell.set(value);
+            return;
+        }
+        vars.compute(variableName, (name, previous) -> {
+            if (previous instanceof NumberCell cell) {
+                cell.set(value);
+                return cell;
+            }
+            return new NumberCell(value);
+        });
+    }
+    
+    /**
+     * Reads a variable as a number: 0 if it is not set, NaN if it holds text that is not a number
+     *
+     * @param playerName Player name (null for global)
+     */
+    public double getNumber(String playerName, String variableName) {
+        Map<String, Object> vars = variables(playerName, false);
+        Object value = vars != null ? vars.get(variableName) : null;
+        if (value instanceof NumberCell cell) {
+            return cell.get();
+        }
+        return value == null ? 0 : parseNumber(value);
+    }
+    
+    /**
+     * Appends a variable to a message; whole numbers are written without ".0"
+     *
+     * @param playerName Player name (null for global)
+     * @return false if the variable is not set
+     */
+    public boolean appendTo(StringBuilder sb, String playerName, String variableName) {
+        Map<String, Object> vars = variables(playerName, false);
+        Object value = vars != null ? vars.get(variableName) : null;
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof NumberCell cell) {
+            appendNumber(sb, cell.get());
+        } else {
+            sb.append(value);
+        }
+        return true;
+    }
+    
+    /**
+     * A number the way scripts show it: 5 rather than 5.0
+     */
+    public static String formatNumber(double value) {
+        StringBuilder sb = new StringBuilder(8);
+        appendNumber(sb, value);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a number the way scripts show it: 5 rather than 5.0
+     */
+    public static void appendNumber(StringBuilder sb, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+    }
+    
+    private ConcurrentHashMap<String, Object> variables(String playerName, boolean create) {
+        if (playerName == null) {
+            return globalVariables;
+        }
+        return create ? playerVariables.computeIfAbsent(playerName, k -> new ConcurrentHashMap<>()) : playerVariables.get(playerName);
+    }
+    
+    /**
+     * The value of a map entry as scripts see it: the number of a cell boxed, text as is
+     */
+    private static Object valueOf(Object stored) {
+        return stored instanceof NumberCell cell ? cell.get() : stored;
+    }
+    
+    private static Map<String, Object> snapshot(Map<String, Object> vars) {
+        Map<String, Object> copy = new HashMap<>(vars.size() * 2);
+        vars.forEach((name, value) -> copy.put(name, valueOf(value)));
+        return copy;
+    }
+    
+    private static double parseNumber(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+    
     /**
      * Gets all global variables (for debugging/info commands)
      */
     public Map<String, Object> getAllGlobal() {
-        return new HashMap<>(globalVariables);
+        return snapshot(globalVariables);
     }
     
     /**
@@ -181,7 +353,7 @@ public class VariableManager {
      */
     public Map<String, Object> getAllPlayer(String playerName) {
         Map<String, Object> playerVars = playerVariables.get(playerName);
-        return playerVars == null ? new HashMap<>() : new HashMap<>(playerVars);
+        return playerVars == null ? new HashMap<>() : snapshot(playerVars);
     }
     
     /**
@@ -204,4 +376,28 @@ public class VariableManager {
         }
         return count;
     }
+    
+    /**
+     * One numeric variable, held as a primitive double.
+     * Synchronized, as async chat handlers may update counters too.
+     */
+    static final class NumberCell {
+        private double value;
+        
+        NumberCell(double value) {
+            this.value = value;
+        }
+        
+        synchronized double get() {
+            return value;
+        }
+        
+        synchronized void set(double value) {
+            this.value = value;
+        }
+        
+        synchronized void add(double amount) {
+            value += amount;
+        }
+    }
 }
@@ -1,10 +1,11 @@
 package com.crow6980.nusantarascript.manager;
 
 import com.crow6980.nusantarascript.NusantaraScript;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import java.io.File;
 import java.io.IOException;
-// import java.util.HashMap; // Unused, remove
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -32,22 +33,36 @@ public class VariablePersistence {
         }
     }
 
-    // Inside your load method in VariablePersistence.java
-
+    /**
+     * Reads the variables back. YAML treats a dot in a key as a path, so a variable
+     * named "skor.x" is stored as a nested section; the deep read joins those
+     * sections back into the dotted name.
+     */
     public void load(Map<String, Object> global, Map<String, Map<String, Object>> player) {
         if (config.contains("global")) {
-            Map<String, Object> loadedGlobal = config.getConfigurationSection("global").getValues(false);
             global.clear();
-            global.putAll(loadedGlobal);
+            global.putAll(values(config.getConfigurationSection("global")));
         }
         if (config.contains("player")) {
             Map<String, Map<String, Object>> loadedPlayer = new ConcurrentHashMap<>();
-            for (String playerId : config.getConfigurationSection("player").getKeys(false)) {
-                Map<String, Object> vars = config.getConfigurationSection("player." + playerId).getValues(false);
-                loadedPlayer.put(playerId, vars);
+            ConfigurationSection players = config.getConfigurationSection("player");
+            for (String playerId : players.getKeys(false)) {
+                loadedPlayer.put(playerId, values(players.getConfigurationSection(playerId)));
             }
             player.clear();
             player.putAll(loadedPlayer);
         }
     }
+
+    /**
+     * The leaf values of a section by their full dotted path
+     */
+    private static Map<String, Object> values(ConfigurationSection section) {
+        Map<String, Object> values = new HashMap<>();
+        if (section == null) return values;
+        section.getValues(true).forEach((key, value) -> {
+            if (!(value instanceof ConfigurationSection)) values.put(key, value);
+        });
+        return values;
+    }
 }
\ No newline at end of file
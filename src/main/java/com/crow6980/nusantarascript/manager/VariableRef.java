@@ -0,0 +1,133 @@
+package com.crow6980.nusantarascript.manager;
+
+import org.bukkit.entity.Player;
+
+/**
+ * A script variable reference ({name} or {name.%player%}), resolved once when
+ * the script is compiled.
+ *
+ * %pemain% and %player% mean the same thing. The placeholder is removed from
+ * the name together with the dot next to it, so {skor.%pemain%},
+ * {skor.%player%} and {%player%.skor} all name the player variable "skor".
+ * The key is interned: its hash is computed once and lookups in the
+ * {@link VariableManager} maps usually succeed on the identity check, so an
+ * access does no string work at all.
+ *
+ * @author crow6980
+ */
+public final class VariableRef {
+
+    public enum Scope { GLOBAL, PLAYER }
+
+    private static final String PLAYER = "%player%";
+    private static final String PEMAIN = "%pemain%";
+
+    private final Scope scope;
+    private final String key;
+
+    private VariableRef(Scope scope, String key) {
+        this.scope = scope;
+        this.key = key;
+    }
+
+    /**
+     * Resolves a variable name as written between the braces
+     */
+    public static VariableRef of(String name) {
+        String unified = name.replace(PEMAIN, PLAYER);
+        if (!unified.contains(PLAYER)) {
+            return new VariableRef(Scope.GLOBAL, unified.intern());
+        }
+
+        // Drop the placeholder and the separator dot it leaves behind
+        String[] parts = unified.replace(PLAYER, "").split("\\.");
+        StringBuilder key = new StringBuilder(unified.length());
+        for (String part : parts) {
+            if (part.isEmpty()) continue;
+            if (key.length() > 0) key.append('.');
+            key.append(part);
+        }
+        return new VariableRef(Scope.PLAYER, key.toString().intern());
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public boolean isPlayerScoped() {
+        return scope == Scope.PLAYER;
+    }
+
+    /**
+     * Storage key, without any player placeholder
+     */
+    public String getKey() {
+        return key;
+    }
+
+    // ==================== ACCESS ====================
+
+    /**
+     * @param player The running player; player variables read as missing without one
+     */
+    public Object get(VariableManager variables, Player player) {
+        if (scope == Scope.GLOBAL) return variables.getGlobal(key);
+        return player != null ? variables.getPlayer(player.getName(), key) : null;
+    }
+
+    /**
+     * Reads the variable as a number without boxing
+     * @return 0 if it is not set (or there is no running player), NaN if it holds text
+     */
+    public double number(VariableManager variables, Player player) {
+        if (scope == Scope.GLOBAL) return variables.getNumber(null, key);
+        return player != null ? variables.getNumber(player.getName(), key) : 0;
+    }
+
+    /**
+     * Appends the value to a message
+     * @return false if the variable is not set
+     */
+    public boolean appendTo(StringBuilder sb, VariableManager variables, Player player) {
+        if (scope == Scope.GLOBAL) return variables.appendTo(sb, null, key);
+        return player != null && variables.appendTo(sb, player.getName(), key);
+    }
+
+    /**
+     * Does nothing for a player variable without a running player
+     */
+    public void set(VariableManager variables, Player player, Object value) {
+        if (scope == Scope.GLOBAL) variables.setGlobal(key, value);
+        else if (player != null) variables.setPlayer(player.getName(), key, value);
+    }
+
+    public void setNumber(VariableManager variables, Player player, double value) {
+        if (scope == Scope.GLOBAL) variables.setNumber(null, key, value);
+        else if (player != null) variables.setNumber(player.getName(), key, value);
+    }
+
+    public void add(VariableManager variables, Player player, double amount) {
+        if (scope == Scope.GLOBAL) variables.add(null, key, amount);
+        else if (player != null) variables.add(player.getName(), key, amount);
+    }
+
+    public void delete(VariableManager variables, Player player) {
+        if (scope == Scope.GLOBAL) variables.deleteGlobal(key);
+        else if (player != null) variables.deletePlayer(player.getName(), key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VariableRef other && scope == other.scope && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode() * 31 + scope.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return scope == Scope.GLOBAL ? "{" + key + "}" : "{" + key + "." + PLAYER + "}";
+    }
+}
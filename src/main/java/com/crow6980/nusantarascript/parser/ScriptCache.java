@@ -0,0 +1,329 @@
+package com.crow6980.nusantarascript.parser;
+
+import com.crow6980.nusantarascript.command.CustomCommand;
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.condition.ConditionalBlock;
+import com.crow6980.nusantarascript.script.Action;
+import com.crow6980.nusantarascript.script.EventHandler;
+import com.crow6980.nusantarascript.script.Script;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * On-disk cache of parsed scripts.
+ *
+ * Every parsed {@link Script} is written to plugins/NusantaraScript/cache/ as a
+ * small binary file named after the SHA-256 of the source and the parser
+ * {@link ScriptParser#VERSION}. When a file has not changed since the last
+ * start, the cached model is memory-mapped and decoded instead of running the
+ * lexer and parser again.
+ *
+ * The cache is only an accelerator: any read error, version mismatch or
+ * corrupt entry counts as a miss and the file is parsed normally.
+ * Safe to use from several loader threads at once.
+ *
+ * @author crow6980
+ */
+public class ScriptCache {
+
+    private static final int MAGIC = 0x4E534331; // "NSC1"
+    private static final String EXTENSION = ".nsc";
+
+    // Condition tags
+    private static final byte COND_EXPRESSION = 0;
+    private static final byte COND_HEALTH = 1;
+    private static final byte COND_WORLD = 2;
+    private static final byte COND_BLOCK = 3;
+    private static final byte COND_HOLDING = 4;
+    private static final byte COND_PERMISSION = 5;
+    private static final byte COND_PLAYER_NAME = 6;
+    private static final byte COND_VAR_LESS = 7;
+    private static final byte COND_VAR_GREATER = 8;
+    private static final byte COND_VAR_EQUALS = 9;
+    private static final byte COND_FLYING = 10;
+    private static final byte COND_SNEAKING = 11;
+    private static final byte COND_TOOL = 12;
+
+    private final Path folder;
+
+    public ScriptCache(File folder) {
+        this.folder = folder.toPath();
+    }
+
+    /**
+     * Loads a cached script for the given content hash
+     *
+     * @param filename Name of the script file (not part of the cache key)
+     * @param hash Content hash of the source
+     * @return The cached script, or null on a miss
+     */
+    public Script load(String filename, String hash) {
+        Path path = entry(hash);
+        if (!Files.isRegularFile(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != ScriptParser.VERSION) return null;
+            return readScript(buffer, filename);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a parsed script to the cache. Failures are ignored.
+     */
+    public void store(String hash, Script script) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(ScriptParser.VERSION);
+            writeScript(out, script);
+            out.flush();
+
+            // Write to a temp file first so readers never see a half-written entry
+            Files.createDirectories(folder);
+            Path temp = Files.createTempFile(folder, hash, ".tmp");
+            try {
+                Files.write(temp, bytes.toByteArray());
+                Files.move(temp, entry(hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // Not cacheable this time, the next start simply parses again
+        }
+    }
+
+    /**
+     * Deletes every entry whose hash is not in the given set, and entries of older parser versions
+     */
+    public void retain(Collection<String> hashes) {
+        File[] files = folder.toFile().listFiles((dir, name) -> name.endsWith(EXTENSION) || name.endsWith(".tmp"));
+        if (files == null) return;
+
+        Set<String> keep = new java.util.HashSet<>();
+        for (String hash : hashes) keep.add(entry(hash).getFileName().toString());
+
+        for (File file : files) {
+            if (!keep.contains(file.getName())) {
+                file.delete();
+            }
+        }
+    }
+
+    private Path entry(String hash) {
+        return folder.resolve(hash + "-v" + ScriptParser.VERSION + EXTENSION);
+    }
+
+    // ==================== WRITING ====================
+
+    private void writeScript(DataOutputStream out, Script script) throws IOException {
+        List<EventHandler> handlers = script.getEventHandlers();
+        out.writeInt(handlers.size());
+        for (EventHandler handler : handlers) {
+            writeString(out, handler.getEventType().name());
+            out.writeInt(handler.getLineNumber());
+            out.writeLong(handler.getCooldownMillis());
+            writeActions(out, handler.getActions());
+            List<ConditionalBlock> blocks = handler.getConditionalBlocks();
+            out.writeInt(blocks.size());
+            for (ConditionalBlock block : blocks) writeBlock(out, block);
+        }
+
+        List<CustomCommand> commands = script.getCustomCommands();
+        out.writeInt(commands.size());
+        for (CustomCommand command : commands) {
+            writeString(out, command.getName());
+            List<String> arguments = command.getArguments();
+            out.writeInt(arguments.size());
+            for (String argument : arguments) writeString(out, argument);
+            writeString(out, command.getPermission());
+            writeString(out, command.getDescription());
+            out.writeInt(command.getLineNumber());
+            out.writeLong(command.getCooldownMillis());
+            writeActions(out, command.getActions());
+        }
+    }
+
+    private void writeActions(DataOutputStream out, List<Action> actions) throws IOException {
+        out.writeInt(actions.size());
+        for (Action action : actions) {
+            writeString(out, action.getActionType().name());
+            out.writeInt(action.getLineNumber());
+            writeString(out, action.getParameter());
+            String[] params = action.getAdditionalParams();
+            out.writeInt(params.length);
+            for (String param : params) writeString(out, param);
+            out.writeBoolean(action.getNestedBlock() != null);
+            if (action.getNestedBlock() != null) writeBlock(out, action.getNestedBlock());
+        }
+    }
+
+    private void writeBlock(DataOutputStream out, ConditionalBlock block) throws IOException {
+        out.writeInt(block.getLineNumber());
+        writeCondition(out, block.getCondition());
+        writeActions(out, block.getActions());
+        writeActions(out, block.getElseActions());
+    }
+
+    private void writeCondition(DataOutputStream out, Condition condition) throws IOException {
+        if (condition instanceof Condition.ExpressionCondition c) {
+            out.writeByte(COND_EXPRESSION);
+            writeString(out, c.getExpression());
+        } else if (condition instanceof Condition.PlayerHealthCondition c) {
+            out.writeByte(COND_HEALTH);
+            out.writeDouble(c.getThreshold());
+        } else if (condition instanceof Condition.WorldCondition c) {
+            out.writeByte(COND_WORLD);
+            writeString(out, c.getWorldName());
+        } else if (condition instanceof Condition.BlockTypeCondition c) {
+            out.writeByte(COND_BLOCK);
+            writeString(out, c.getMaterialName());
+        } else if (condition instanceof Condition.HoldingItemCondition c) {
+            out.writeByte(COND_HOLDING);
+            writeString(out, c.getMaterialName());
+        } else if (condition instanceof Condition.PermissionCondition c) {
+            out.writeByte(COND_PERMISSION);
+            writeString(out, c.getPermission());
+        } else if (condition instanceof Condition.PlayerNameCondition c) {
+            out.writeByte(COND_PLAYER_NAME);
+            writeString(out, c.getPlayerName());
+        } else if (condition instanceof Condition.VariableLessThanCondition c) {
+            out.writeByte(COND_VAR_LESS);
+            writeString(out, c.getVariableName());
+            out.writeDouble(c.getThreshold());
+        } else if (condition instanceof Condition.VariableGreaterThanCondition c) {
+            out.writeByte(COND_VAR_GREATER);
+            writeString(out, c.getVariableName());
+            out.writeDouble(c.getThreshold());
+        } else if (condition instanceof Condition.VariableEqualsCondition c) {
+            out.writeByte(COND_VAR_EQUALS);
+            writeString(out, c.getVariableName());
+            writeString(out, c.getExpectedValue());
+        } else if (condition instanceof Condition.PlayerFlyingCondition) {
+            out.writeByte(COND_FLYING);
+        } else if (condition instanceof Condition.PlayerSneakingCondition) {
+            out.writeByte(COND_SNEAKING);
+        } else if (condition instanceof Condition.ToolMatchCondition) {
+            out.writeByte(COND_TOOL);
+        } else {
+            throw new IllegalArgumentException("Unsupported condition: " + condition.getClass().getName());
+        }
+        out.writeInt(condition.getLineNumber());
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // ==================== READING ====================
+
+    private Script readScript(ByteBuffer in, String filename) {
+        int handlerCount = in.getInt();
+        List<EventHandler> handlers = new ArrayList<>(handlerCount);
+        for (int i = 0; i < handlerCount; i++) {
+            EventHandler handler = new EventHandler(EventHandler.EventType.valueOf(readString(in)), in.getInt());
+            handler.setCooldownMillis(in.getLong());
+            readActions(in).forEach(handler::addAction);
+            int blockCount = in.getInt();
+            for (int b = 0; b < blockCount; b++) handler.addConditionalBlock(readBlock(in));
+            handlers.add(handler);
+        }
+
+        int commandCount = in.getInt();
+        List<CustomCommand> commands = new ArrayList<>(commandCount);
+        for (int i = 0; i < commandCount; i++) {
+            String name = readString(in);
+            int argumentCount = in.getInt();
+            List<String> arguments = new ArrayList<>(argumentCount);
+            for (int a = 0; a < argumentCount; a++) arguments.add(readString(in));
+            String permission = readString(in);
+            String description = readString(in);
+            CustomCommand command = new CustomCommand(name, arguments, permission, description, in.getInt());
+            command.setCooldownMillis(in.getLong());
+            readActions(in).forEach(command::addAction);
+            commands.add(command);
+        }
+
+        return new Script(filename, handlers, commands);
+    }
+
+    private List<Action> readActions(ByteBuffer in) {
+        int count = in.getInt();
+        List<Action> actions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Action.ActionType type = Action.ActionType.valueOf(readString(in));
+            int line = in.getInt();
+            String parameter = readString(in);
+            String[] params = new String[in.getInt()];
+            for (int p = 0; p < params.length; p++) params[p] = readString(in);
+
+            if (in.get() != 0) {
+                actions.add(new Action(type, readBlock(in), line));
+            } else {
+                actions.add(new Action(type, parameter, params, line));
+            }
+        }
+        return actions;
+    }
+
+    private ConditionalBlock readBlock(ByteBuffer in) {
+        int line = in.getInt();
+        ConditionalBlock block = new ConditionalBlock(readCondition(in), line);
+        readActions(in).forEach(block::addAction);
+        readActions(in).forEach(block::addElseAction);
+        return block;
+    }
+
+    private Condition readCondition(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case COND_EXPRESSION -> new Condition.ExpressionCondition(readString(in), in.getInt());
+            case COND_HEALTH -> new Condition.PlayerHealthCondition(in.getDouble(), in.getInt());
+            case COND_WORLD -> new Condition.WorldCondition(readString(in), in.getInt());
+            case COND_BLOCK -> new Condition.BlockTypeCondition(readString(in), in.getInt());
+            case COND_HOLDING -> new Condition.HoldingItemCondition(readString(in), in.getInt());
+            case COND_PERMISSION -> new Condition.PermissionCondition(readString(in), in.getInt());
+            case COND_PLAYER_NAME -> new Condition.PlayerNameCondition(readString(in), in.getInt());
+            case COND_VAR_LESS -> new Condition.VariableLessThanCondition(readString(in), in.getDouble(), in.getInt());
+            case COND_VAR_GREATER -> new Condition.VariableGreaterThanCondition(readString(in), in.getDouble(), in.getInt());
+            case COND_VAR_EQUALS -> new Condition.VariableEqualsCondition(readString(in), readString(in), in.getInt());
+            case COND_FLYING -> new Condition.PlayerFlyingCondition(in.getInt());
+            case COND_SNEAKING -> new Condition.PlayerSneakingCondition(in.getInt());
+            case COND_TOOL -> new Condition.ToolMatchCondition(in.getInt());
+            default -> throw new IllegalArgumentException("Unknown condition tag " + tag);
+        };
+    }
+
+    private String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
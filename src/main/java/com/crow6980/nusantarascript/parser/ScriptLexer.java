@@ -2,148 +2,252 @@ package com.crow6980.nusantarascript.parser;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * STEP 3: Basic Lexer (Tokenizer)
- * 
- * The lexer breaks down Indonesian script text into tokens.
- * This is the first phase of parsing: converting raw text into meaningful pieces.
- * 
+ * STEP 3: Lexer (Tokenizer)
+ *
+ * Single-pass, character-level scanner that turns a whole script file into
+ * one token stream for {@link ScriptParser}. Indentation is turned into
+ * INDENT/DEDENT tokens, so the parser never has to look at raw lines.
+ *
  * Token Types:
- * - EVENT_TRIGGER: Lines ending with ':' (e.g., "saat pemain masuk:")
- * - ACTION: Indented lines that represent actions
- * - TEXT: String literals in quotes
- * 
+ * - WORD: keywords and bare words (saat, kirim, DIAMOND_ORE, minecraft:block.note_block.bell)
+ * - STRING: string literals in quotes, without the quotes
+ * - VARIABLE: {variable} references, without the braces
+ * - NUMBER: 5, 1.5, -3
+ * - OPERATOR: > < == >= <= != =
+ * - COMMA, COLON
+ * - NEWLINE, INDENT, DEDENT, EOF
+ *
+ * Empty lines and lines starting with # are skipped and never change the
+ * indentation. A tab counts as 4 spaces and every 4 spaces are one level.
+ *
  * @author crow6980
  */
 public class ScriptLexer {
-    
+
+    private static final int INDENT_SIZE = 4;
+
     /**
      * Token class represents a single meaningful unit of script text
      */
     public static class Token {
         public enum Type {
-            EVENT_TRIGGER,  // Event declaration: "saat pemain masuk:"
-            ACTION,         // Action to execute: "kirim \"text\" ke pemain"
-            UNKNOWN
+            WORD,
+            STRING,
+            VARIABLE,
+            NUMBER,
+            OPERATOR,
+            COMMA,
+            COLON,
+            NEWLINE,
+            INDENT,
+            DEDENT,
+            EOF
         }
-        
+
         private final Type type;
         private final String value;
         private final int lineNumber;
-        private final int indentation;
-        
-        public Token(Type type, String value, int lineNumber, int indentation) {
+        private final int start;
+        private final int end;
+
+        public Token(Type type, String value, int lineNumber, int start, int end) {
             this.type = type;
             this.value = value;
             this.lineNumber = lineNumber;
-            this.indentation = indentation;
+            this.start = start;
+            this.end = end;
         }
-        
+
         public Type getType() { return type; }
         public String getValue() { return value; }
         public int getLineNumber() { return lineNumber; }
-        public int getIndentation() { return indentation; }
-        
+
+        /** Offset of the first source character of this token */
+        public int getStart() { return start; }
+
+        /** Offset just past the last source character of this token */
+        public int getEnd() { return end; }
+
+        public boolean is(Type type) {
+            return this.type == type;
+        }
+
+        /** True for a WORD token equal to the keyword, ignoring case */
+        public boolean isWord(String keyword) {
+            return type == Type.WORD && value.equalsIgnoreCase(keyword);
+        }
+
         @Override
         public String toString() {
-            return "Token{" + type + ", '" + value + "', line=" + lineNumber + ", indent=" + indentation + "}";
+            return "Token{" + type + ", '" + value + "', line=" + lineNumber + "}";
         }
     }
-    
+
+    private final String source;
+    private final int length;
+    private final List<Token> tokens;
+
+    private int pos;
+    private int line;
+
+    // Indentation levels of the open blocks, outermost first
+    private int[] indentStack = new int[8];
+    private int indentDepth;
+
+    private ScriptLexer(String source) {
+        this.source = source;
+        this.length = source.length();
+        // Roughly one token per 6 characters for typical scripts
+        this.tokens = new ArrayList<>(Math.max(16, length / 6));
+        this.line = 1;
+    }
+
     /**
-     * Tokenizes a list of script lines into tokens
-     * 
-     * @param lines The raw script lines
-     * @return List of tokens ready for parsing
+     * Tokenizes a whole script file
+     *
+     * @param source The complete file content
+     * @return Token stream ending with EOF
      */
-    public List<Token> tokenize(List<String> lines) {
-        List<Token> tokens = new ArrayList<>();
-        
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
-            int lineNumber = i + 1; // Human-readable line numbers start at 1
-            
-            // Calculate indentation (number of leading spaces)
-            int indentation = getIndentation(line);
-            String trimmed = line.trim();
-            
-            // Determine token type
-            Token.Type type = determineTokenType(trimmed, indentation);
-            
-            // Create token
-            Token token = new Token(type, trimmed, lineNumber, indentation);
-            tokens.add(token);
+    public static List<Token> tokenize(String source) {
+        ScriptLexer lexer = new ScriptLexer(source);
+        lexer.scan();
+        return lexer.tokens;
+    }
+
+    private void scan() {
+        while (pos < length) {
+            int lineStart = pos;
+            int lineEnd = source.indexOf('\n', pos);
+            if (lineEnd < 0) lineEnd = length;
+
+            // Measure indentation
+            int spaces = 0;
+            int p = pos;
+            while (p < lineEnd) {
+                char c = source.charAt(p);
+                if (c == ' ') spaces++;
+                else if (c == '\t') spaces += INDENT_SIZE;
+                else break;
+                p++;
+            }
+
+            // Skip blank and comment lines entirely
+            int contentEnd = trimEnd(p, lineEnd);
+            if (p < contentEnd && source.charAt(p) != '#') {
+                indent(spaces / INDENT_SIZE, lineStart);
+                scanLine(p, contentEnd);
+                tokens.add(new Token(Token.Type.NEWLINE, "", line, contentEnd, contentEnd));
+            }
+
+            pos = lineEnd + 1;
+            line++;
         }
-        
-        return tokens;
+
+        while (indentDepth > 0) {
+            indentDepth--;
+            tokens.add(new Token(Token.Type.DEDENT, "", line, length, length));
+        }
+        tokens.add(new Token(Token.Type.EOF, "", line, length, length));
     }
-    
+
     /**
-     * Determines the type of token based on the line content
-     * 
-     * Rules:
-     * - Lines ending with ':' are EVENT_TRIGGER
-     * - Indented lines are ACTION
-     * - Everything else is UNKNOWN
+     * Emits INDENT/DEDENT tokens for the indentation level of a new line
      */
-    private Token.Type determineTokenType(String trimmed, int indentation) {
-        // Event triggers end with a colon
-        if (trimmed.endsWith(":")) {
-            return Token.Type.EVENT_TRIGGER;
+    private void indent(int level, int offset) {
+        int current = indentDepth == 0 ? 0 : indentStack[indentDepth - 1];
+        if (level > current) {
+            if (indentDepth == indentStack.length) {
+                indentStack = java.util.Arrays.copyOf(indentStack, indentDepth * 2);
+            }
+            indentStack[indentDepth++] = level;
+            tokens.add(new Token(Token.Type.INDENT, "", line, offset, offset));
+            return;
+        }
+        while (indentDepth > 0 && indentStack[indentDepth - 1] > level) {
+            indentDepth--;
+            tokens.add(new Token(Token.Type.DEDENT, "", line, offset, offset));
         }
-        
-        // Actions are indented lines
-        if (indentation > 0) {
-            return Token.Type.ACTION;
+        // Dedented to a level that was never opened: treat it as a new block
+        int outer = indentDepth == 0 ? 0 : indentStack[indentDepth - 1];
+        if (level > outer) {
+            indentStack[indentDepth++] = level;
+            tokens.add(new Token(Token.Type.INDENT, "", line, offset, offset));
         }
-        
-        return Token.Type.UNKNOWN;
     }
-    
+
     /**
-     * Counts the number of leading spaces in a line
-     * Used to determine code blocks and hierarchy
+     * Scans the tokens of one non-empty line
      */
-    private int getIndentation(String line) {
-        int spaces = 0;
-        for (char c : line.toCharArray()) {
-            if (c == ' ') {
-                spaces++;
-            } else if (c == '	') {
-                spaces += 4; // Treat tab as 4 spaces
+    private void scanLine(int p, int end) {
+        while (p < end) {
+            char c = source.charAt(p);
+
+            if (c == ' ' || c == '\t' || c == '\r') {
+                p++;
+            } else if (c == '"') {
+                int close = source.indexOf('"', p + 1);
+                // Unterminated string: take the rest of the line
+                int valueEnd = close < 0 || close >= end ? end : close;
+                int tokenEnd = valueEnd == end ? end : valueEnd + 1;
+                tokens.add(new Token(Token.Type.STRING, source.substring(p + 1, valueEnd), line, p, tokenEnd));
+                p = tokenEnd;
+            } else if (c == '{') {
+                int close = source.indexOf('}', p + 1);
+                int valueEnd = close < 0 || close >= end ? end : close;
+                int tokenEnd = valueEnd == end ? end : valueEnd + 1;
+                tokens.add(new Token(Token.Type.VARIABLE, source.substring(p + 1, valueEnd).trim(), line, p, tokenEnd));
+                p = tokenEnd;
+            } else if (c == ',') {
+                tokens.add(new Token(Token.Type.COMMA, ",", line, p, p + 1));
+                p++;
+            } else if (c == ':') {
+                tokens.add(new Token(Token.Type.COLON, ":", line, p, p + 1));
+                p++;
+            } else if (isOperatorChar(c)) {
+                int start = p;
+                p++;
+                if (p < end && source.charAt(p) == '=') p++;
+                tokens.add(new Token(Token.Type.OPERATOR, source.substring(start, p), line, start, p));
             } else {
-                break;
+                int start = p;
+                while (p < end && isWordChar(p, end)) p++;
+                if (p == start) p++; // lone '}' or similar: keep it as a one-character word
+                String value = source.substring(start, p);
+                Token.Type type = isNumber(value) ? Token.Type.NUMBER : Token.Type.WORD;
+                tokens.add(new Token(type, value, line, start, p));
             }
         }
-        return spaces;
     }
-    
-    /**
-     * Extracts string literals from an action line
-     * Example: kirim "Selamat datang!" ke pemain
-     * Returns: ["Selamat datang!"]
-     */
-    public static List<String> extractStrings(String line) {
-        List<String> strings = new ArrayList<>();
-        Pattern pattern = Pattern.compile("\"([^\"]*)\"");
-        Matcher matcher = pattern.matcher(line);
-        
-        while (matcher.find()) {
-            strings.add(matcher.group(1));
+
+    private boolean isWordChar(int p, int end) {
+        char c = source.charAt(p);
+        if (c == ':') {
+            // Part of a namespaced key like minecraft:stone, otherwise a COLON
+            return p + 1 < end && !Character.isWhitespace(source.charAt(p + 1));
         }
-        
-        return strings;
+        return !Character.isWhitespace(c) && c != '"' && c != '{' && c != ',' && !isOperatorChar(c);
     }
-    
-    /**
-     * Removes string literals from a line for easier parsing
-     * Example: kirim "Selamat datang!" ke pemain
-     * Returns: kirim  ke pemain
-     */
-    public static String removeStrings(String line) {
-        return line.replaceAll("\"[^\"]*\"", "");
+
+    private static boolean isOperatorChar(char c) {
+        return c == '>' || c == '<' || c == '=' || c == '!';
+    }
+
+    private static boolean isNumber(String value) {
+        int i = value.charAt(0) == '-' ? 1 : 0;
+        if (i == value.length()) return false;
+        boolean dot = false;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' && !dot) dot = true;
+            else if (c < '0' || c > '9') return false;
+        }
+        return value.charAt(value.length() - 1) != '.';
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && Character.isWhitespace(source.charAt(end - 1))) end--;
+        return end;
     }
 }
@@ -4,6 +4,7 @@ import com.crow6980.nusantarascript.NusantaraScript;
 import com.crow6980.nusantarascript.command.CustomCommand;
 import com.crow6980.nusantarascript.condition.Condition;
 import com.crow6980.nusantarascript.condition.ConditionalBlock;
+import com.crow6980.nusantarascript.parser.ScriptLexer.Token;
 import com.crow6980.nusantarascript.script.Action;
 import com.crow6980.nusantarascript.script.EventHandler;
 import com.crow6980.nusantarascript.script.Script;
@@ -11,312 +12,494 @@ import com.crow6980.nusantarascript.script.Script;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ScriptParser {
 
-    
-    private static final int INDENT_SIZE = 4;
+    /**
+     * Version of the parsed Script model produced by this parser.
+     * Bump whenever parsing rules change, so {@link ScriptCache} entries
+     * written by an older parser are ignored.
+     */
+    public static final int VERSION = 8;
 
     public ScriptParser(NusantaraScript plugin) {
         // We can pass the plugin instance if we need to access registries or utilities during parsing
     }
 
-    public Script parse(String filename, List<String> rawLines) {
-        List<IndentedLine> lines = parseIndentation(rawLines);
-        if (lines.isEmpty()) return null;
+    /**
+     * Parses a whole script file.
+     * The parser keeps no state between calls, so one instance can be used
+     * from several loader threads at once.
+     */
+    public Script parse(String filename, String source) {
+        if (source.isEmpty()) return null;
+        return parse(filename, source, ScriptLexer.tokenize(source));
+    }
+
+    /**
+     * Parses an already tokenized script file, so callers can time the
+     * lexer and the parser separately.
+     *
+     * @param tokens The output of {@link ScriptLexer#tokenize(String)} for source
+     */
+    public Script parse(String filename, String source, List<Token> tokens) {
+        Tokens in = new Tokens(source, tokens);
 
         List<EventHandler> eventHandlers = new ArrayList<>();
         List<CustomCommand> customCommands = new ArrayList<>();
 
-        int i = 0;
-        while (i < lines.size()) {
-            IndentedLine line = lines.get(i);
-            if (line.content.isEmpty() || line.content.startsWith("#")) {
-                i++; continue;
-            }
+        while (!in.peek().is(Token.Type.EOF)) {
+            Token first = in.peek();
 
-            if (line.indentLevel == 0 && isEventTrigger(line.content)) {
-                EventHandler handler = parseEventHandler(lines, i, filename);
+            if (first.isWord("saat")) {
+                EventHandler handler = parseEventHandler(in);
                 if (handler != null) eventHandlers.add(handler);
-                i = findNextBlockStart(lines, i);
-            } else if (line.indentLevel == 0 && isCommandDeclaration(line.content)) {
-                CustomCommand command = parseCustomCommand(lines, i, filename);
+            } else if (first.isWord("perintah")) {
+                CustomCommand command = parseCustomCommand(in);
                 if (command != null) customCommands.add(command);
-                i = findNextBlockStart(lines, i);
             } else {
-                i++;
+                in.skipStatement();
             }
         }
         return new Script(filename, eventHandlers, customCommands);
     }
 
-    private List<IndentedLine> parseIndentation(List<String> rawLines) {
-        List<IndentedLine> result = new ArrayList<>();
-        for (int i = 0; i < rawLines.size(); i++) {
-            String line = rawLines.get(i);
-            int spaces = 0;
-            for (char c : line.toCharArray()) {
-                if (c == ' ') spaces++;
-                else if (c == '\t') spaces += 4;
-                else break;
-            }
-            result.add(new IndentedLine(line.trim(), spaces / INDENT_SIZE, i + 1));
+    private EventHandler parseEventHandler(Tokens in) {
+        int from = in.pos;
+        int to = in.lineEnd();
+        EventHandler handler = parseEventTrigger(in, from, in.withoutColon(from, to));
+        in.pos = to + 1;
+
+        if (handler == null) {
+            in.skipBlock();
+            return null;
         }
-        return result;
-    }
+        if (!in.peek().is(Token.Type.INDENT)) return handler;
+        in.pos++;
 
-    private EventHandler parseEventHandler(List<IndentedLine> lines, int startIndex, String filename) {
-        IndentedLine triggerLine = lines.get(startIndex);
-        EventHandler handler = parseEventTrigger(triggerLine, filename);
-        if (handler == null) return null;
-
-        int i = startIndex + 1;
-        while (i < lines.size()) {
-            IndentedLine line = lines.get(i);
-            if (line.indentLevel <= triggerLine.indentLevel && !line.content.isEmpty()) break;
-
-            if (line.indentLevel == 1) {
-                if (isCondition(line.content)) {
-                    ConditionalParseResult result = parseConditionalBlock(lines, i, filename);
-                    if (result.block != null) handler.addConditionalBlock(result.block);
-                    i = result.nextIndex;
-                    continue;
-                } else {
-                    Action action = parseAction(line, filename);
-                    if (action != null) handler.addAction(action);
-                }
-            }
-            i++;
+        // "tunggu: N detik" as the first line is the handler's cooldown, not an action
+        if (isCooldown(in)) {
+            handler.setCooldownMillis(parseCooldown(in));
         }
+        parseStatements(in, handler::addAction, handler::addConditionalBlock);
         return handler;
     }
 
-    private ConditionalParseResult parseConditionalBlock(List<IndentedLine> lines, int startIndex, String filename) {
-        IndentedLine conditionLine = lines.get(startIndex);
-        Condition condition = parseCondition(conditionLine, filename);
-        if (condition == null) return new ConditionalParseResult(null, startIndex + 1);
-
-        ConditionalBlock block = new ConditionalBlock(condition, conditionLine.lineNumber);
-        int i = startIndex + 1;
-
-        // Parse standard "if" actions
-        while (i < lines.size()) {
-            IndentedLine line = lines.get(i);
-            if (line.indentLevel <= conditionLine.indentLevel && !line.content.isEmpty()) break;
-            if (line.indentLevel == conditionLine.indentLevel + 1 && !line.content.isEmpty()) {
-                Action action = parseAction(line, filename);
-                if (action != null) block.addAction(action);
-            }
-            i++;
-        }
-
-        // Parse "jika tidak" (else) or "jika..." (elseif)
-        while (i < lines.size()) {
-            IndentedLine next = lines.get(i);
-            String lc = next.content.toLowerCase();
-            
-            if (lc.equals("jika tidak:") || lc.equals("jika tidak")) {
-                i++;
-                while (i < lines.size()) {
-                    IndentedLine line = lines.get(i);
-                    if (line.indentLevel <= conditionLine.indentLevel && !line.content.isEmpty()) break;
-                    if (line.indentLevel == conditionLine.indentLevel + 1 && !line.content.isEmpty()) {
-                        Action action = parseAction(line, filename);
-                        if (action != null) block.addElseAction(action);
-                    }
-                    i++;
-                }
-            } else if (lc.startsWith("jika ") && lc.endsWith(":")) {
-                ConditionalParseResult elseifResult = parseConditionalBlock(lines, i, filename);
-                if (elseifResult.block != null) {
-                    block.addElseAction(new Action(Action.ActionType.NESTED_CONDITION, elseifResult.block, next.lineNumber));
-                    i = elseifResult.nextIndex;
-                }
-                break;
+    private boolean isCooldown(Tokens in) {
+        return in.peek().isWord("tunggu") && in.get(in.pos + 1).is(Token.Type.COLON);
+    }
+
+    /**
+     * Parses "tunggu: N [detik|menit|jam]" and moves past the line
+     * @return The cooldown in milliseconds, 0 if the line is not valid
+     */
+    private long parseCooldown(Tokens in) {
+        int to = in.lineEnd();
+        String amount = in.firstValue(in.pos, to, Token.Type.NUMBER, "0");
+        String unit = in.pos + 3 < to ? in.get(in.pos + 3).getValue().toLowerCase() : "detik";
+        in.pos = to + 1;
+        in.skipBlock();
+
+        long perUnit = switch (unit) {
+            case "menit" -> 60_000L;
+            case "jam" -> 3_600_000L;
+            default -> 1_000L; // detik
+        };
+        try {
+            return Math.max(0, (long) (Double.parseDouble(amount) * perUnit));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Parses an indented block of actions and jika blocks, if there is one
+     */
+    private void parseBlock(Tokens in, Consumer<Action> actions, Consumer<ConditionalBlock> conditions) {
+        if (!in.peek().is(Token.Type.INDENT)) return;
+        in.pos++;
+        parseStatements(in, actions, conditions);
+    }
+
+    /**
+     * Parses statements up to and including the DEDENT that closes the current block
+     */
+    private void parseStatements(Tokens in, Consumer<Action> actions, Consumer<ConditionalBlock> conditions) {
+        while (true) {
+            Token first = in.peek();
+            if (first.is(Token.Type.DEDENT)) { in.pos++; return; }
+            if (first.is(Token.Type.EOF)) return;
+
+            if (first.isWord("jika")) {
+                ConditionalBlock block = parseConditionalBlock(in);
+                if (block != null) conditions.accept(block);
+            } else if (first.is(Token.Type.INDENT)) {
+                // Over-indented lines without a header are ignored
+                in.skipBlock();
             } else {
-                break;
+                int to = in.lineEnd();
+                Action action = parseAction(in, in.pos, to);
+                if (action != null) actions.accept(action);
+                in.pos = to + 1;
+                in.skipBlock();
             }
         }
-        return new ConditionalParseResult(block, i);
     }
 
-    private CustomCommand parseCustomCommand(List<IndentedLine> lines, int startIndex, String filename) {
-        IndentedLine commandLine = lines.get(startIndex);
-        String commandName = extractCommandName(commandLine.content);
-        if (commandName == null) return null;
+    /**
+     * Parses "jika ...:" with its body, followed by an optional "jika tidak:" (else)
+     * or a directly following "jika ...:" (elseif)
+     */
+    private ConditionalBlock parseConditionalBlock(Tokens in) {
+        Token keyword = in.peek();
+        int to = in.lineEnd();
+        Condition condition = parseCondition(in, in.pos + 1, in.withoutColon(in.pos + 1, to), keyword.getLineNumber());
+        in.pos = to + 1;
+
+        if (condition == null) {
+            in.skipBlock();
+            return null;
+        }
+
+        ConditionalBlock block = new ConditionalBlock(condition, keyword.getLineNumber());
+        parseBlock(in, block::addAction, nested -> block.addAction(nestedAction(nested)));
+
+        Token next = in.peek();
+        if (!next.isWord("jika")) return block;
+
+        int nextEnd = in.lineEnd();
+        if (in.get(in.pos + 1).isWord("tidak") && in.withoutColon(in.pos + 2, nextEnd) == in.pos + 2) {
+            // jika tidak:
+            in.pos = nextEnd + 1;
+            parseBlock(in, block::addElseAction, nested -> block.addElseAction(nestedAction(nested)));
+        } else if (in.get(nextEnd - 1).is(Token.Type.COLON)) {
+            // jika ...: right after a jika block acts as elseif
+            ConditionalBlock elseif = parseConditionalBlock(in);
+            if (elseif != null) block.addElseAction(nestedAction(elseif));
+        }
+        return block;
+    }
+
+    private CustomCommand parseCustomCommand(Tokens in) {
+        Token keyword = in.peek();
+        int to = in.lineEnd();
+        List<String> words = in.words(in.pos + 1, in.withoutColon(in.pos + 1, to));
+        in.pos = to + 1;
+
+        if (words.isEmpty()) {
+            in.skipBlock();
+            return null;
+        }
+
+        String commandName = words.get(0);
+        commandName = commandName.startsWith("/") ? commandName.substring(1).toLowerCase() : commandName.toLowerCase();
+        List<String> argsDefs = new ArrayList<>(words.size() - 1);
+        for (int i = 1; i < words.size(); i++) {
+            // <name:type> keeps its colon; only a colon glued to the last word ends the line
+            String definition = words.get(i);
+            argsDefs.add(definition.endsWith(":") ? definition.substring(0, definition.length() - 1) : definition);
+        }
 
-        List<String> argsDefs = extractCommandArguments(commandLine.content);
         String permission = null;
+        long cooldownMillis = 0;
         List<Action> actions = new ArrayList<>();
-        boolean inActionBlock = false;
-
-        int i = startIndex + 1;
-        while (i < lines.size()) {
-            IndentedLine line = lines.get(i);
-            if (line.indentLevel == 0 && !line.content.isEmpty()) break;
-            
-            if (line.indentLevel == 1) {
-                String lc = line.content.toLowerCase();
-                if (lc.startsWith("izin:")) permission = extractQuotedString(line.content);
-                else if (lc.startsWith("aksi:")) inActionBlock = true;
-            } else if (line.indentLevel >= 2 && inActionBlock) {
-                if (isCondition(line.content)) {
-                    ConditionalParseResult result = parseConditionalBlock(lines, i, filename);
-                    if (result.block != null) {
-                        actions.add(new Action(Action.ActionType.NESTED_CONDITION, result.block, line.lineNumber));
-                        i = result.nextIndex;
-                        continue;
-                    }
+
+        if (in.peek().is(Token.Type.INDENT)) {
+            in.pos++;
+            while (!in.peek().is(Token.Type.DEDENT) && !in.peek().is(Token.Type.EOF)) {
+                Token first = in.peek();
+                int lineEnd = in.lineEnd();
+
+                if (first.isWord("izin") && in.get(in.pos + 1).is(Token.Type.COLON)) {
+                    permission = in.firstValue(in.pos, lineEnd, Token.Type.STRING, "");
+                    in.pos = lineEnd + 1;
+                    in.skipBlock();
+                } else if (isCooldown(in)) {
+                    cooldownMillis = parseCooldown(in);
+                } else if (first.isWord("aksi") && in.get(in.pos + 1).is(Token.Type.COLON)) {
+                    in.pos = lineEnd + 1;
+                    parseBlock(in, actions::add, block -> actions.add(nestedAction(block)));
                 } else {
-                    Action action = parseAction(line, filename);
-                    if (action != null) actions.add(action);
+                    in.skipStatement();
                 }
             }
-            i++;
+            if (in.peek().is(Token.Type.DEDENT)) in.pos++;
         }
-        CustomCommand cmd = new CustomCommand(commandName, argsDefs, permission, "Custom", commandLine.lineNumber);
+
+        CustomCommand cmd = new CustomCommand(commandName, argsDefs, permission, "Custom", keyword.getLineNumber());
+        cmd.setCooldownMillis(cooldownMillis);
         actions.forEach(cmd::addAction);
         return cmd;
     }
 
-    private EventHandler parseEventTrigger(IndentedLine line, String filename) {
-        String trigger = line.content.toLowerCase();
-        if (trigger.endsWith(":")) trigger = trigger.substring(0, trigger.length() - 1).trim();
-        
-        EventHandler.EventType type = switch (trigger) {
+    private EventHandler parseEventTrigger(Tokens in, int from, int to) {
+        StringBuilder trigger = new StringBuilder(24);
+        for (int i = from; i < to; i++) {
+            if (i > from) trigger.append(' ');
+            trigger.append(in.get(i).getValue().toLowerCase());
+        }
+
+        EventHandler.EventType type = switch (trigger.toString()) {
             case "saat pemain masuk" -> EventHandler.EventType.PLAYER_JOIN;
             case "saat pemain chat" -> EventHandler.EventType.PLAYER_CHAT;
             case "saat pemain keluar" -> EventHandler.EventType.PLAYER_QUIT;
             case "saat blok dihancurkan" -> EventHandler.EventType.BLOCK_BREAK;
             default -> null;
         };
-        return type != null ? new EventHandler(type, line.lineNumber) : null;
+        return type != null ? new EventHandler(type, in.get(from).getLineNumber()) : null;
     }
 
-    private Action parseAction(IndentedLine line, String filename) {
-        String raw = line.content;
-        String lower = raw.toLowerCase();
-        List<String> strings = ScriptLexer.extractStrings(raw);
+    /**
+     * Parses one action line, tokens [from, to) without the NEWLINE
+     */
+    private Action parseAction(Tokens in, int from, int to) {
+        Token first = in.get(from);
+        int line = first.getLineNumber();
+        if (!first.is(Token.Type.WORD)) return null;
+
+        if (first.isWord("kirim") && in.containsWords(from, to, "ke", "pemain"))
+            return new Action(Action.ActionType.SEND_MESSAGE, in.firstValue(from, to, Token.Type.STRING, ""), line);
 
-        if (lower.startsWith("kirim") && lower.contains("ke pemain")) 
-            return new Action(Action.ActionType.SEND_MESSAGE, strings.isEmpty() ? "" : strings.get(0), line.lineNumber);
-        
-        if (lower.equals("berhenti")) {
+        if (first.isWord("berhenti") && to - from == 1) {
             // Explicitly cast null to String to resolve ambiguity
-            return new Action(Action.ActionType.STOP, (String) null, line.lineNumber);
+            return new Action(Action.ActionType.STOP, (String) null, line);
         }
-        if (lower.startsWith("beri_item")) {
-            String data = raw.substring(9).trim();
-            String[] parts = data.split(",");
-            String mat = parts[0].trim();
-            String amt = parts.length > 1 ? parts[1].trim() : "1";
-            return new Action(Action.ActionType.GIVE_ITEM, mat, new String[]{amt}, line.lineNumber);
+        if (first.isWord("beri_item")) {
+            int comma = in.find(from + 1, to, Token.Type.COMMA);
+            String mat = in.slice(from + 1, comma < 0 ? to : comma);
+            String amt = comma < 0 ? "1" : in.slice(comma + 1, to);
+            return new Action(Action.ActionType.GIVE_ITEM, mat, new String[]{amt}, line);
         }
         // Variables
-        if (lower.startsWith("setel") || lower.startsWith("atur variabel")) {
-            // Make sure this line is EXACTLY like this:
-            String varName = extractVariableName(raw); 
-            return new Action(Action.ActionType.SET_VARIABLE, varName, new String[]{strings.isEmpty() ? "0" : strings.get(0)}, line.lineNumber);
+        if (first.isWord("setel") || (first.isWord("atur") && in.get(from + 1).isWord("variabel"))) {
+            String varName = in.firstValue(from, to, Token.Type.VARIABLE, "");
+            String value = in.firstValue(from, to, Token.Type.STRING, null);
+            if (value == null) value = in.firstValue(from, to, Token.Type.NUMBER, "0");
+            return new Action(Action.ActionType.SET_VARIABLE, varName, new String[]{value}, line);
         }
         // 1. Broadcast / Umumkan
-        if (lower.startsWith("broadcast") || lower.startsWith("umumkan")) {
-            return new Action(Action.ActionType.BROADCAST, strings.isEmpty() ? "" : strings.get(0), line.lineNumber);
+        if (first.isWord("broadcast") || first.isWord("umumkan")) {
+            return new Action(Action.ActionType.BROADCAST, in.firstValue(from, to, Token.Type.STRING, ""), line);
+        }
+
+        // 2. Play Sound / Suara: suara "entity.player.levelup" ke pemain
+        if (first.isWord("suara")) {
+            String sound = in.firstValue(from + 1, to, Token.Type.STRING, null);
+            if (sound == null) sound = in.firstValue(from + 1, to, Token.Type.WORD, "");
+            return new Action(Action.ActionType.PLAY_SOUND, sound, line);
         }
 
-        // 2. Play Sound / Suara
-        if (lower.startsWith("suara")) {
-            String sound = raw.substring(5).trim();
-            return new Action(Action.ActionType.PLAY_SOUND, sound, line.lineNumber);
+        // Teleport: teleport pemain ke "world" 100, 64, 100
+        if (first.isWord("teleport") || first.isWord("teleportasi")) {
+            return new Action(Action.ActionType.TELEPORT, in.values(from + 1, to), line);
+        }
+
+        // Potion effect: beri efek "speed" 30 1 ke pemain (name, seconds, level)
+        if (first.isWord("efek") || (first.isWord("beri") && in.get(from + 1).isWord("efek"))) {
+            int start = first.isWord("efek") ? from + 1 : from + 2;
+            return new Action(Action.ActionType.GIVE_EFFECT, in.values(start, to), line);
         }
 
         // 3. Cancel Event / Batalkan
-        if (lower.equals("batalkan event") || lower.equals("cancel event")) {
-            return new Action(Action.ActionType.CANCEL_EVENT, (String) null, line.lineNumber);
+        if ((first.isWord("batalkan") || first.isWord("cancel")) && to - from == 2 && in.get(from + 1).isWord("event")) {
+            return new Action(Action.ActionType.CANCEL_EVENT, (String) null, line);
         }
 
         // 4. Heal & Feed
-        if (lower.contains("pulihkan pemain") || lower.contains("heal pemain")) {
-            return new Action(Action.ActionType.HEAL_PLAYER, (String) null, line.lineNumber);
+        if (in.containsWords(from, to, "pulihkan", "pemain") || in.containsWords(from, to, "heal", "pemain")) {
+            return new Action(Action.ActionType.HEAL_PLAYER, (String) null, line);
         }
-        if (lower.contains("beri makan pemain") || lower.contains("feed pemain")) {
-            return new Action(Action.ActionType.FEED_PLAYER, (String) null, line.lineNumber);
+        if (in.containsWords(from, to, "beri", "makan", "pemain") || in.containsWords(from, to, "feed", "pemain")) {
+            return new Action(Action.ActionType.FEED_PLAYER, (String) null, line);
         }
 
         // 5. Variable Math (Tambah/Kurangi)
-        if (lower.startsWith("tambah")) {
-            String varName = extractVariableName(raw);
-            return new Action(Action.ActionType.ADD_VARIABLE, varName, new String[]{extractNumber(lower)}, line.lineNumber);
+        if (first.isWord("tambah")) {
+            String varName = in.firstValue(from, to, Token.Type.VARIABLE, "");
+            return new Action(Action.ActionType.ADD_VARIABLE, varName, new String[]{in.firstValue(from, to, Token.Type.NUMBER, "0")}, line);
         }
-        if (lower.startsWith("kurangi")) {
-            String varName = extractVariableName(raw);
-            return new Action(Action.ActionType.SUBTRACT_VARIABLE, varName, new String[]{extractNumber(lower)}, line.lineNumber);
+        if (first.isWord("kurangi")) {
+            String varName = in.firstValue(from, to, Token.Type.VARIABLE, "");
+            return new Action(Action.ActionType.SUBTRACT_VARIABLE, varName, new String[]{in.firstValue(from, to, Token.Type.NUMBER, "0")}, line);
         }
         // Add other actions (suara, setel, etc) here following the same pattern
         return null;
     }
 
-    private Condition parseCondition(IndentedLine line, String filename) {
-        String text = line.content;
-        if (text.toLowerCase().startsWith("jika ")) text = text.substring(5).trim();
-        if (text.endsWith(":")) text = text.substring(0, text.length() - 1).trim();
+    /**
+     * Parses the condition of a jika line, tokens [from, to) without "jika" and the colon
+     */
+    private Condition parseCondition(Tokens in, int from, int to, int lineNumber) {
+        if (from >= to) return null;
+        int length = to - from;
 
-        if (text.contains(">") || text.contains("<") || text.contains("==")) {
-            return new Condition.ExpressionCondition(text, line.lineNumber);
+        // jika blok adalah "DIAMOND_ORE"
+        if (length == 3 && in.wordsAt(from, "blok", "adalah") && in.get(from + 2).is(Token.Type.STRING)) {
+            return new Condition.BlockTypeCondition(in.get(from + 2).getValue(), lineNumber);
         }
-        return null;
+        // jika pemain memegang "DIAMOND_PICKAXE"
+        if (length == 3 && in.wordsAt(from, "pemain", "memegang") && in.get(from + 2).is(Token.Type.STRING)) {
+            return new Condition.HoldingItemCondition(in.get(from + 2).getValue(), lineNumber);
+        }
+        // jika pemain punya izin "nusantara.vip"
+        if (length == 4 && in.wordsAt(from, "pemain", "punya", "izin") && in.get(from + 3).is(Token.Type.STRING)) {
+            return new Condition.PermissionCondition(in.get(from + 3).getValue(), lineNumber);
+        }
+        // jika pemain adalah "Notch"
+        if (length == 3 && in.wordsAt(from, "pemain", "adalah") && in.get(from + 2).is(Token.Type.STRING)) {
+            return new Condition.PlayerNameCondition(in.get(from + 2).getValue(), lineNumber);
+        }
+        // jika dunia adalah "world_nether"
+        if (length == 3 && in.wordsAt(from, "dunia", "adalah") && in.get(from + 2).is(Token.Type.STRING)) {
+            return new Condition.WorldCondition(in.get(from + 2).getValue(), lineNumber);
+        }
+        // jika darah kurang dari 6
+        if (length == 4 && in.wordsAt(from, "darah", "kurang", "dari") && in.get(from + 3).is(Token.Type.NUMBER)) {
+            return new Condition.PlayerHealthCondition(Double.parseDouble(in.get(from + 3).getValue()), lineNumber);
+        }
+        // jika pemain sedang terbang / menyelinap
+        if (length == 3 && in.wordsAt(from, "pemain", "sedang", "terbang")) {
+            return new Condition.PlayerFlyingCondition(lineNumber);
+        }
+        if (length == 3 && (in.wordsAt(from, "pemain", "sedang", "menyelinap") || in.wordsAt(from, "pemain", "sedang", "jongkok"))) {
+            return new Condition.PlayerSneakingCondition(lineNumber);
+        }
+        // jika alat benar
+        if (length == 2 && in.wordsAt(from, "alat", "benar")) {
+            return new Condition.ToolMatchCondition(lineNumber);
+        }
+
+        // {a} > 10, {a} lebih dari 10, {a} adalah "x", ...
+        Condition.ExpressionCondition expression = new Condition.ExpressionCondition(in.slice(from, to), lineNumber);
+        return expression.isValid() ? expression : null;
     }
 
     // --- UTILS ---
 
-    private int findNextBlockStart(List<IndentedLine> lines, int currentIndex) {
-        int baseLevel = lines.get(currentIndex).indentLevel;
-        for (int i = currentIndex + 1; i < lines.size(); i++) {
-            if (lines.get(i).indentLevel <= baseLevel && !lines.get(i).content.isEmpty()) return i;
-        }
-        return lines.size();
+    private static Action nestedAction(ConditionalBlock block) {
+        return new Action(Action.ActionType.NESTED_CONDITION, block, block.getLineNumber());
     }
 
-    private boolean isEventTrigger(String line) { return line.toLowerCase().startsWith("saat "); }
-    private boolean isCommandDeclaration(String line) { return line.toLowerCase().startsWith("perintah "); }
-    private boolean isCondition(String line) { return line.toLowerCase().trim().startsWith("jika "); }
+    /**
+     * Cursor over the token stream of one file
+     */
+    private static class Tokens {
+        final String source;
+        final Token[] tokens;
+        int pos;
+
+        Tokens(String source, List<Token> tokens) {
+            this.source = source;
+            this.tokens = tokens.toArray(new Token[0]);
+        }
 
-    private String extractCommandName(String line) {
-        String name = line.substring(8).trim().split("\\s+|:")[0];
-        return name.startsWith("/") ? name.substring(1).toLowerCase() : name.toLowerCase();
-    }
+        Token peek() { return tokens[pos]; }
 
-    private List<String> extractCommandArguments(String line) {
-        List<String> args = new ArrayList<>();
-        String[] parts = line.split("\\s+");
-        for(int i=2; i<parts.length; i++) args.add(parts[i].replace(":", ""));
-        return args;
-    }
+        /** Token at index i, or the final EOF when out of range */
+        Token get(int i) { return tokens[Math.min(i, tokens.length - 1)]; }
 
-    private String extractVariableName(String line) {
-        int s = line.indexOf("{"), e = line.indexOf("}");
-        return (s != -1 && e > s) ? line.substring(s+1, e) : "";
-    }
+        /** Index of the NEWLINE (or EOF) ending the current line */
+        int lineEnd() {
+            int i = pos;
+            while (!tokens[i].is(Token.Type.NEWLINE) && !tokens[i].is(Token.Type.EOF)) i++;
+            return i;
+        }
 
-    private String extractQuotedString(String t) {
-        List<String> s = ScriptLexer.extractStrings(t);
-        return s.isEmpty() ? "" : s.get(0);
-    }
+        /** Drops a trailing COLON from the range [from, to) */
+        int withoutColon(int from, int to) {
+            return to > from && tokens[to - 1].is(Token.Type.COLON) ? to - 1 : to;
+        }
 
-    private static class IndentedLine {
-        final String content; final int indentLevel; final int lineNumber;
-        IndentedLine(String c, int i, int l) { this.content = c; this.indentLevel = i; this.lineNumber = l; }
-    }
+        /** Skips an indented block if the cursor is at one */
+        void skipBlock() {
+            if (!peek().is(Token.Type.INDENT)) return;
+            int depth = 0;
+            do {
+                Token token = tokens[pos];
+                if (token.is(Token.Type.INDENT)) depth++;
+                else if (token.is(Token.Type.DEDENT)) depth--;
+                else if (token.is(Token.Type.EOF)) return;
+                pos++;
+            } while (depth > 0);
+        }
 
-    private static class ConditionalParseResult {
-        final ConditionalBlock block; final int nextIndex;
-        ConditionalParseResult(ConditionalBlock b, int n) { this.block = b; this.nextIndex = n; }
-    }
-    private String extractNumber(String text) {
-    // Menghapus semua karakter kecuali angka dan titik desimal
-    // Regex: [^0-9.] mencari apapun yang BUKAN angka atau titik dan menghapusnya
-        String numeric = text.replaceAll("[^0-9.]", "").trim();
-        return numeric.isEmpty() ? "0" : numeric;
+        /** Skips the current line together with its indented block */
+        void skipStatement() {
+            if (peek().is(Token.Type.INDENT)) {
+                skipBlock();
+                return;
+            }
+            if (peek().is(Token.Type.DEDENT)) {
+                pos++;
+                return;
+            }
+            pos = lineEnd() + 1;
+            skipBlock();
+        }
+
+        /** Original source text of the tokens [from, to) */
+        String slice(int from, int to) {
+            if (from >= to) return "";
+            return source.substring(tokens[from].getStart(), tokens[to - 1].getEnd());
+        }
+
+        int find(int from, int to, Token.Type type) {
+            for (int i = from; i < to; i++) {
+                if (tokens[i].is(type)) return i;
+            }
+            return -1;
+        }
+
+        String firstValue(int from, int to, Token.Type type, String fallback) {
+            int i = find(from, to, type);
+            return i < 0 ? fallback : tokens[i].getValue();
+        }
+
+        /**
+         * Operand values of [from, to) joined by commas, skipping the filler
+         * words "pemain" and "ke": "world" 1, 2, 3 -> world,1,2,3
+         */
+        String values(int from, int to) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                Token token = tokens[i];
+                if (token.is(Token.Type.COMMA) || token.isWord("pemain") || token.isWord("ke")) continue;
+                if (sb.length() > 0) sb.append(',');
+                sb.append(token.getValue());
+            }
+            return sb.toString();
+        }
+
+        /** True if the tokens starting at from are exactly these words */
+        boolean wordsAt(int from, String... words) {
+            for (int w = 0; w < words.length; w++) {
+                if (!get(from + w).isWord(words[w])) return false;
+            }
+            return true;
+        }
+
+        /** True if the words appear consecutively anywhere in [from, to) */
+        boolean containsWords(int from, int to, String... words) {
+            for (int i = from; i + words.length <= to; i++) {
+                int w = 0;
+                while (w < words.length && tokens[i + w].isWord(words[w])) w++;
+                if (w == words.length) return true;
+            }
+            return false;
+        }
+
+        /** Source text of [from, to) split at whitespace, so "<pemain>" stays one word */
+        List<String> words(int from, int to) {
+            List<String> words = new ArrayList<>();
+            int start = from;
+            for (int i = from + 1; i <= to; i++) {
+                if (i == to || tokens[i].getStart() != tokens[i - 1].getEnd()) {
+                    if (start < i) words.add(slice(start, i));
+                    start = i;
+                }
+            }
+            return words;
+        }
     }
-    // Add this to the bottom of ScriptParser.java if you don't have ScriptLexer
-    
-}
\ No newline at end of file
+}
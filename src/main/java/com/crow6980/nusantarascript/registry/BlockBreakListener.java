@@ -1,13 +1,12 @@
 package com.crow6980.nusantarascript.registry;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Bukkit listener for BlockBreakEvent
  * Executes all script handlers registered for "saat blok dihancurkan"
@@ -28,12 +27,10 @@ public class BlockBreakListener implements Listener {
     public void onBlockBreak(BlockBreakEvent event) {
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.BLOCK_BREAK);
         
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("block", event.getBlock());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
+        context.setBlock(event.getBlock());
         
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.execute(handler, context);
         }
     }
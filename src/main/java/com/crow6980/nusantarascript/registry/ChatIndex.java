@@ -0,0 +1,186 @@
+package com.crow6980.nusantarascript.registry;
+
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
+import com.crow6980.nusantarascript.compiler.HandlerGuard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Selects the chat handlers whose message guard matches a chat message.
+ *
+ * Handlers that start with {message} adalah / diawali dengan / berisi "text"
+ * (see {@link HandlerGuard#getMessageMatch()}) contribute their text to one
+ * Aho–Corasick automaton. A message is scanned once, whatever the number of
+ * guarded handlers; every pattern end found marks its handler when the match
+ * kind fits (anywhere, at the start, or the whole message). Handlers without
+ * a message guard are always selected.
+ *
+ * Characters are compared case-insensitively, the same way
+ * String.equalsIgnoreCase and the guard conditions compare them.
+ *
+ * Immutable once built; safe to use from the async chat threads.
+ *
+ * @author crow6980
+ */
+final class ChatIndex {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final CompiledHandler[] handlers;  // file order
+    private final boolean[] unguarded;         // per handler: no message guard
+    private final int guardedCount;
+
+    // Automaton: per state the sorted outgoing characters and their target states
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[][] output; // handler indexes whose text ends in this state (incl. via fail links)
+
+    private final HandlerGuard.MessageMatch[] kinds; // per handler
+    private final int[] lengths;                     // per handler: text length
+
+    ChatIndex(List<CompiledHandler> handlers) {
+        this.handlers = handlers.toArray(new CompiledHandler[0]);
+        int count = this.handlers.length;
+        this.unguarded = new boolean[count];
+        this.kinds = new HandlerGuard.MessageMatch[count];
+        this.lengths = new int[count];
+
+        // Build the trie with sorted maps, then freeze it into arrays
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+
+        int guarded = 0;
+        for (int h = 0; h < count; h++) {
+            HandlerGuard guard = this.handlers[h].getGuard();
+            if (guard.getMessageMatch() == null) {
+                unguarded[h] = true;
+                continue;
+            }
+            guarded++;
+            kinds[h] = guard.getMessageMatch();
+            String text = guard.getMessageText();
+            lengths[h] = text.length();
+
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = fold(text.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            ends.get(state).add(h);
+        }
+        this.guardedCount = guarded;
+
+        int states = trie.size();
+        edgeChars = new char[states][];
+        edgeTargets = new int[states][];
+        for (int s = 0; s < states; s++) {
+            TreeMap<Character, Integer> edges = trie.get(s);
+            edgeChars[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int e = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[s][e] = edge.getKey();
+                edgeTargets[s][e] = edge.getValue();
+                e++;
+            }
+        }
+
+        // Failure links in breadth-first order, merging the outputs of the fallback state
+        fail = new int[states];
+        output = new int[states][];
+        output[0] = toArray(ends.get(0));
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            fail[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            List<Integer> merged = new ArrayList<>(ends.get(s));
+            for (int m : output[fail[s]]) merged.add(m);
+            output[s] = toArray(merged);
+
+            for (int e = 0; e < edgeChars[s].length; e++) {
+                char c = edgeChars[s][e];
+                int target = edgeTargets[s][e];
+                int f = fail[s];
+                while (f != 0 && step(f, c) < 0) f = fail[f];
+                int next = step(f, c);
+                fail[target] = next >= 0 && next != target ? next : 0;
+                queue.add(target);
+            }
+        }
+    }
+
+    /**
+     * The handlers that may act on the message, in file order.
+     * Returns the shared handler array when every handler is selected.
+     */
+    CompiledHandler[] select(String message) {
+        if (guardedCount == 0) return handlers;
+
+        boolean[] matched = unguarded.clone();
+        int length = message.length();
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = fold(message.charAt(i));
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) state = fail[state];
+            state = Math.max(next, 0);
+
+            for (int h : output[state]) {
+                if (matched[h]) continue;
+                int start = i - lengths[h] + 1;
+                matched[h] = switch (kinds[h]) {
+                    case CONTAINS -> true;
+                    case STARTS_WITH -> start == 0;
+                    case EQUALS -> start == 0 && i == length - 1;
+                };
+            }
+        }
+
+        int selected = 0;
+        for (boolean m : matched) if (m) selected++;
+        if (selected == handlers.length) return handlers;
+        CompiledHandler[] result = new CompiledHandler[selected];
+        for (int h = 0, r = 0; h < handlers.length; h++) {
+            if (matched[h]) result[r++] = handlers[h];
+        }
+        return result;
+    }
+
+    private int step(int state, char c) {
+        int e = Arrays.binarySearch(edgeChars[state], c);
+        return e >= 0 ? edgeTargets[state][e] : -1;
+    }
+
+    /**
+     * Folds case the way String.equalsIgnoreCase compares characters
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) return NO_MATCHES;
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+        return array;
+    }
+}
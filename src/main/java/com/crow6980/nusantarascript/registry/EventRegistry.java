@@ -1,35 +1,64 @@
 package com.crow6980.nusantarascript.registry;
 
 import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
+import com.crow6980.nusantarascript.compiler.CompiledScript;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.script.EventHandler;
-import com.crow6980.nusantarascript.script.Script;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * STEP 4: Dynamic Event Registry
  * Manages the mapping of .ns script logic to Minecraft events.
- * * NOTE: Standard events are now handled by ScriptEventListener.
- * This class primarily manages the storage of script handlers.
+ * 
+ * Bukkit listeners are registered per event type, through {@link ScriptEventListener},
+ * only while at least one loaded script handles that type.
+ * 
+ * Handlers guarded by jika blok adalah "X" (see {@link com.crow6980.nusantarascript.compiler.HandlerGuard})
+ * are indexed by block type, so a broken block only visits the handlers that can act on it.
  */
 public class EventRegistry {
     
+    // Stable sort: handlers of one script keep their source order
+    private static final Comparator<CompiledHandler> HANDLER_ORDER = Comparator.comparing(CompiledHandler::getScriptName);
+    
     private final NusantaraScript plugin;
     private final EnhancedScriptExecutor executor;
+    private final Function<EventHandler.EventType, Listener> listeners;
     
-    // Maps event types to their active Bukkit Listener objects (for dynamic/non-standard events)
+    // Maps event types to their active Bukkit Listener objects
     private final Map<EventHandler.EventType, Listener> registeredListeners;
     
-    // Maps event types to the list of script handlers that need to run
-    private final Map<EventHandler.EventType, List<EventHandler>> eventHandlers;
+    // Maps event types to the list of compiled script handlers that need to run
+    private final Map<EventHandler.EventType, List<CompiledHandler>> eventHandlers;
+    
+    // Array snapshot of eventHandlers read on every event: rebuilt when scripts are
+    // (un)registered, so dispatch iterates a plain array and allocates nothing.
+    // Replaced as a whole, so async events (chat) always see a consistent snapshot.
+    private volatile DispatchTable dispatchTable = DispatchTable.EMPTY;
+    
+    private static final CompiledHandler[] NO_HANDLERS = new CompiledHandler[0];
     
     public EventRegistry(NusantaraScript plugin, EnhancedScriptExecutor executor) {
+        this(plugin, executor, new ScriptEventListener(plugin, executor)::register);
+    }
+    
+    /**
+     * @param listeners Registers the Bukkit listener of an event type, see {@link ScriptEventListener#register}
+     */
+    public EventRegistry(NusantaraScript plugin, EnhancedScriptExecutor executor,
+                         Function<EventHandler.EventType, Listener> listeners) {
         this.plugin = plugin;
         this.executor = executor;
-        this.registeredListeners = new HashMap<>();
+        this.listeners = listeners;
+        this.registeredListeners = new EnumMap<>(EventHandler.EventType.class);
         this.eventHandlers = new HashMap<>();
     }
     
@@ -38,52 +67,107 @@ public class EventRegistry {
     }
     
     /**
-     * Registers all events used by a script.
+     * Registers all events used by a compiled script.
      */
-    public void registerScript(Script script) {
-        for (EventHandler handler : script.getEventHandlers()) {
+    public void registerScript(CompiledScript script) {
+        for (CompiledHandler handler : script.getHandlers()) {
             EventHandler.EventType eventType = handler.getEventType();
             
             // Link the handler logic to the event type
-            eventHandlers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(handler);
+            List<CompiledHandler> handlers = eventHandlers.computeIfAbsent(eventType, k -> new ArrayList<>());
+            handlers.add(handler);
             
-            // WE DO NOT call registerBukkitListener(eventType) here for 
-            // JOIN, QUIT, CHAT, or BREAK because ScriptEventListener handles them.
-            // Only use this for custom or extra dynamic events in the future.
+            // Keep handlers in script file order, also when a single script is swapped in later
+            handlers.sort(HANDLER_ORDER);
+            
+            // First handler of this type: start listening to the Bukkit event
+            registerBukkitListener(eventType);
         }
+        rebuildDispatchTable();
     }
     
     /**
-     * Dynamically creates and registers specific Bukkit listeners
-     * COMMENTED OUT: Most of these are now handled by ScriptEventListener
+     * Removes all handlers that came from the given script file.
+     * Handlers of other scripts are left untouched (used by hot reload).
      */
-    /*
-    private void registerBukkitListener(EventHandler.EventType eventType) {
-        Listener listener = null;
-        
-        switch (eventType) {
-            // These are now handled in ScriptEventListener.java to avoid double-execution
-            // case PLAYER_JOIN:
-            //     listener = new PlayerJoinListener(this, executor);
-            //     break;
-            default:
-                break;
+    public void unregisterScript(String scriptName) {
+        Iterator<Map.Entry<EventHandler.EventType, List<CompiledHandler>>> it = eventHandlers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<EventHandler.EventType, List<CompiledHandler>> entry = it.next();
+            entry.getValue().removeIf(handler -> handler.getScriptName().equals(scriptName));
+            if (entry.getValue().isEmpty()) {
+                it.remove();
+                // Last handler of this type is gone: stop listening
+                unregisterBukkitListener(entry.getKey());
+            }
         }
+        rebuildDispatchTable();
+        executor.getBudget().forgetScript(scriptName);
+    }
+    
+    private void rebuildDispatchTable() {
+        dispatchTable = new DispatchTable(eventHandlers);
+    }
+    
+    /**
+     * Registers the Bukkit listener for an event type, unless it is already registered
+     */
+    private void registerBukkitListener(EventHandler.EventType eventType) {
+        if (registeredListeners.containsKey(eventType)) return;
         
+        Listener listener = listeners.apply(eventType);
         if (listener != null) {
-            plugin.getServer().getPluginManager().registerEvents(listener, plugin);
             registeredListeners.put(eventType, listener);
-            plugin.getLogger().info("Successfully registered dynamic listener: " + eventType);
+            if (plugin.isDebugEnabled()) {
+                plugin.getLogger().info("Listener didaftarkan: " + eventType);
+            }
+        }
+    }
+    
+    private void unregisterBukkitListener(EventHandler.EventType eventType) {
+        Listener listener = registeredListeners.remove(eventType);
+        if (listener != null) {
+            HandlerList.unregisterAll(listener);
+            if (plugin.isDebugEnabled()) {
+                plugin.getLogger().info("Listener dilepas: " + eventType);
+            }
         }
     }
-    */
     
     /**
-     * Returns the list of script handlers for a fired event.
-     * This is called by ScriptEventListener to find which scripts to run.
+     * Returns the script handlers for a fired event, in script file order.
+     * This is called on every event to find which scripts to run, so it returns
+     * a shared array: callers must not modify it.
      */
-    public List<EventHandler> getHandlers(EventHandler.EventType eventType) {
-        return eventHandlers.getOrDefault(eventType, Collections.emptyList());
+    public CompiledHandler[] getHandlers(EventHandler.EventType eventType) {
+        return dispatchTable.get(dispatchTable.all, eventType);
+    }
+    
+    /**
+     * Returns the handlers that can act on the event in the context, in script file order:
+     * block events skip handlers guarded by other block types, chat and death events skip
+     * handlers whose message guard does not match. Safe to call from async threads.
+     */
+    public CompiledHandler[] getHandlers(EventHandler.EventType eventType, ExecutionContext context) {
+        DispatchTable table = dispatchTable;
+        MaterialIndex materials = table.byMaterial.get(eventType);
+        if (materials != null) {
+            Block block = context.getBlock();
+            return materials.select(block != null ? block.getType() : null);
+        }
+        ChatIndex messages = table.byMessage.get(eventType);
+        if (messages != null && context.getMessage() != null) {
+            return messages.select(context.getMessage());
+        }
+        return table.get(table.all, eventType);
+    }
+    
+    /**
+     * True if at least one loaded script handles the event type.
+     * Listeners check this before building an execution context.
+     */
+    public boolean hasHandlers(EventHandler.EventType eventType) {
+        return dispatchTable.all.containsKey(eventType);
     }
     
     /**
@@ -96,6 +180,8 @@ public class EventRegistry {
         
         registeredListeners.clear();
         eventHandlers.clear();
+        dispatchTable = DispatchTable.EMPTY;
+        executor.getBudget().forgetAll();
         
         plugin.getLogger().info("Cleared all script event handlers.");
     }
@@ -105,9 +191,82 @@ public class EventRegistry {
      */
     public Map<EventHandler.EventType, Integer> getEventStatistics() {
         Map<EventHandler.EventType, Integer> stats = new HashMap<>();
-        for (Map.Entry<EventHandler.EventType, List<EventHandler>> entry : eventHandlers.entrySet()) {
+        for (Map.Entry<EventHandler.EventType, List<CompiledHandler>> entry : eventHandlers.entrySet()) {
             stats.put(entry.getKey(), entry.getValue().size());
         }
         return stats;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Immutable per-event-type handler arrays and guard indexes
+     */
+    private static final class DispatchTable {
+        static final DispatchTable EMPTY = new DispatchTable(Collections.emptyMap());
+        
+        // Events that always fill {message}; elsewhere {message} falls back to a global variable
+        static final Set<EventHandler.EventType> MESSAGE_EVENTS =
+                EnumSet.of(EventHandler.EventType.PLAYER_CHAT, EventHandler.EventType.PLAYER_DEATH);
+        
+        final Map<EventHandler.EventType, CompiledHandler[]> all = new EnumMap<>(EventHandler.EventType.class);
+        final Map<EventHandler.EventType, MaterialIndex> byMaterial = new EnumMap<>(EventHandler.EventType.class);
+        final Map<EventHandler.EventType, ChatIndex> byMessage = new EnumMap<>(EventHandler.EventType.class);
+        
+        DispatchTable(Map<EventHandler.EventType, List<CompiledHandler>> handlers) {
+            for (Map.Entry<EventHandler.EventType, List<CompiledHandler>> entry : handlers.entrySet()) {
+                boolean blockGuarded = false;
+                boolean messageGuarded = false;
+                for (CompiledHandler handler : entry.getValue()) {
+                    blockGuarded |= handler.getGuard().getMaterials() != null;
+                    messageGuarded |= handler.getGuard().getMessageMatch() != null;
+                }
+                if (blockGuarded) {
+                    byMaterial.put(entry.getKey(), new MaterialIndex(entry.getValue()));
+                } else if (messageGuarded && MESSAGE_EVENTS.contains(entry.getKey())) {
+                    byMessage.put(entry.getKey(), new ChatIndex(entry.getValue()));
+                }
+                all.put(entry.getKey(), entry.getValue().toArray(NO_HANDLERS));
+            }
+        }
+        
+        CompiledHandler[] get(Map<EventHandler.EventType, CompiledHandler[]> table, EventHandler.EventType eventType) {
+            CompiledHandler[] handlers = table.get(eventType);
+            return handlers != null ? handlers : NO_HANDLERS;
+        }
+    }
+    
+    /**
+     * Handlers of one event type per block type. Handlers without a block guard
+     * appear in every entry and in {@link #unguarded}, the entry for block types
+     * no handler is guarded by.
+     */
+    private static final class MaterialIndex {
+        final Map<Material, CompiledHandler[]> byMaterial = new EnumMap<>(Material.class);
+        final CompiledHandler[] unguarded;
+        
+        MaterialIndex(List<CompiledHandler> handlers) {
+            Set<Material> guarded = EnumSet.noneOf(Material.class);
+            List<CompiledHandler> any = new ArrayList<>();
+            for (CompiledHandler handler : handlers) {
+                Set<Material> materials = handler.getGuard().getMaterials();
+                if (materials == null) any.add(handler);
+                else guarded.addAll(materials);
+            }
+            unguarded = any.toArray(NO_HANDLERS);
+            
+            // Keep file order within each entry
+            for (Material material : guarded) {
+                List<CompiledHandler> entry = new ArrayList<>();
+                for (CompiledHandler handler : handlers) {
+                    Set<Material> materials = handler.getGuard().getMaterials();
+                    if (materials == null || materials.contains(material)) entry.add(handler);
+                }
+                byMaterial.put(material, entry.toArray(NO_HANDLERS));
+            }
+        }
+        
+        CompiledHandler[] select(Material material) {
+            CompiledHandler[] handlers = material != null ? byMaterial.get(material) : null;
+            return handlers != null ? handlers : unguarded;
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.crow6980.nusantarascript.registry;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import io.papermc.paper.event.player.AsyncChatEvent;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Bukkit listener for AsyncChatEvent
  * Executes all script handlers registered for "saat pemain chat"
@@ -28,11 +27,9 @@ public class PlayerChatListener implements Listener {
     public void onPlayerChat(AsyncChatEvent event) {
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.PLAYER_CHAT);
         
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
         
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.execute(handler, context);
         }
     }
@@ -1,13 +1,12 @@
 package com.crow6980.nusantarascript.registry;
 
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Bukkit listener for PlayerJoinEvent
  * Executes all script handlers registered for "saat pemain masuk"
@@ -30,12 +29,10 @@ public class PlayerJoinListener implements Listener {
         var handlers = registry.getHandlers(com.crow6980.nusantarascript.script.EventHandler.EventType.PLAYER_JOIN);
         
         // Create context for script execution
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", event.getPlayer());
-        context.put("event", event);
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
         
         // Execute each handler
-        for (com.crow6980.nusantarascript.script.EventHandler handler : handlers) {
+        for (CompiledHandler handler : handlers) {
             executor.execute(handler, context);
         }
     }
@@ -3,10 +3,13 @@ package com.crow6980.nusantarascript.registry;
 import io.papermc.paper.event.player.AsyncChatEvent;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import com.crow6980.nusantarascript.NusantaraScript;
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
 import com.crow6980.nusantarascript.execution.EnhancedScriptExecutor;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
 import com.crow6980.nusantarascript.script.EventHandler;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
@@ -15,10 +18,20 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Consumer;
 
-public class ScriptEventListener implements Listener {
+/**
+ * Bridge from Bukkit events to script handlers.
+ *
+ * Nothing is registered up front. {@link EventRegistry} calls {@link #register}
+ * the first time a script uses an event type, and unregisters the returned
+ * listener once the last handler of that type is gone, so events that no
+ * script uses never reach the plugin.
+ *
+ * Chat arrives on an async thread: handlers the compiler marked async-safe
+ * run there directly, the rest are handed to the main thread.
+ */
+public class ScriptEventListener {
     private final EnhancedScriptExecutor executor;
     private final NusantaraScript plugin;
 
@@ -27,75 +40,127 @@ public class ScriptEventListener implements Listener {
         this.executor = executor;
     }
 
-    @org.bukkit.event.EventHandler
+    /**
+     * Registers the Bukkit listener for one script event type
+     * @return The listener to pass to HandlerList.unregisterAll, or null if Bukkit has no matching event
+     */
+    public Listener register(EventHandler.EventType type) {
+        Listener listener = new Listener() {};
+        switch (type) {
+            case PLAYER_JOIN -> listen(PlayerJoinEvent.class, listener, this::onJoin);
+            case PLAYER_QUIT -> listen(PlayerQuitEvent.class, listener, this::onQuit);
+            case BLOCK_BREAK -> listen(BlockBreakEvent.class, listener, this::onBlockBreak);
+            case PLAYER_CHAT -> listen(AsyncChatEvent.class, listener, this::onChat);
+            case PLAYER_DEATH -> listen(PlayerDeathEvent.class, listener, this::onDeath);
+            case PLAYER_RESPAWN -> listen(PlayerRespawnEvent.class, listener, this::onRespawn);
+            case PLAYER_DAMAGE -> listen(EntityDamageEvent.class, listener, this::onDamage);
+            default -> {
+                return null;
+            }
+        }
+        return listener;
+    }
+
+    private <T extends Event> void listen(Class<T> eventClass, Listener listener, Consumer<T> handler) {
+        plugin.getServer().getPluginManager().registerEvent(eventClass, listener, EventPriority.NORMAL,
+                (ignored, event) -> {
+                    // Bukkit also passes subclasses that share the handler list
+                    if (eventClass.isInstance(event)) handler.accept(eventClass.cast(event));
+                }, plugin);
+    }
+
     public void onJoin(PlayerJoinEvent event) {
-        execute(EventHandler.EventType.PLAYER_JOIN, event.getPlayer(), event, null);
+        dispatch(EventHandler.EventType.PLAYER_JOIN, event.getPlayer(), event);
     }
 
-    @org.bukkit.event.EventHandler
     public void onQuit(PlayerQuitEvent event) {
-        execute(EventHandler.EventType.PLAYER_QUIT, event.getPlayer(), event, null);
+        dispatch(EventHandler.EventType.PLAYER_QUIT, event.getPlayer(), event);
     }
 
-    @org.bukkit.event.EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
-        Map<String, Object> extra = new HashMap<>();
-        extra.put("block", event.getBlock());
-        // Context for 'jika alat benar'
-        extra.put("alat_benar", event.getBlock().isPreferredTool(event.getPlayer().getInventory().getItemInMainHand()));
+        if (!plugin.getEventRegistry().hasHandlers(EventHandler.EventType.BLOCK_BREAK)) return;
         
-        execute(EventHandler.EventType.BLOCK_BREAK, event.getPlayer(), event, extra);
+        ExecutionContext context = executor.acquireContext(event.getPlayer(), event);
+        try {
+            // {alat_benar} is computed from the block and the held item only when a script reads it
+            context.setBlock(event.getBlock());
+            executor.executeEvent(EventHandler.EventType.BLOCK_BREAK, context);
+        } finally {
+            executor.releaseContext(context);
+        }
     }
 
-    @org.bukkit.event.EventHandler
     public void onChat(AsyncChatEvent event) {
-        Map<String, Object> extra = new HashMap<>();
-        String rawMessage = PlainTextComponentSerializer.plainText().serialize(event.message());
-        extra.put("message", rawMessage);
+        if (!plugin.getEventRegistry().hasHandlers(EventHandler.EventType.PLAYER_CHAT)) return;
         
-        Player player = event.getPlayer();
-        // Return to Main Thread for script execution safety
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            execute(EventHandler.EventType.PLAYER_CHAT, player, event, extra);
-        });
+        // Built off the main thread, so this context does not come from the pool
+        ExecutionContext context = new ExecutionContext(event.getPlayer(), event);
+        context.setMessage(PlainTextComponentSerializer.plainText().serialize(event.message()));
+        
+        // One scan of the message selects the handlers whose message guard matches
+        CompiledHandler[] handlers = plugin.getEventRegistry().getHandlers(EventHandler.EventType.PLAYER_CHAT, context);
+        if (handlers.length == 0) return;
+        
+        if (!event.isAsynchronous()) {
+            executor.executeHandlers(handlers, context);
+            return;
+        }
+        
+        // Handlers that only message, cancel and touch variables run right here on the
+        // chat thread, so "batalkan event" still reaches the event before it is sent
+        executor.executeHandlers(handlers, context, true);
+        
+        // Everything else (world, inventory, effects) is queued for the main thread
+        for (CompiledHandler handler : handlers) {
+            if (!handler.isAsyncSafe()) {
+                executor.runOnMainThread(() -> executor.executeHandlers(handlers, context, false));
+                break;
+            }
+        }
     }
 
-    @org.bukkit.event.EventHandler
     public void onDeath(PlayerDeathEvent event) {
-        Map<String, Object> extra = new HashMap<>();
-        String message = event.deathMessage() != null ? 
-            PlainTextComponentSerializer.plainText().serialize(event.deathMessage()) : "";
-        extra.put("message", message);
+        if (!plugin.getEventRegistry().hasHandlers(EventHandler.EventType.PLAYER_DEATH)) return;
         
-        execute(EventHandler.EventType.PLAYER_DEATH, event.getEntity(), event, extra);
+        ExecutionContext context = executor.acquireContext(event.getEntity(), event);
+        try {
+            context.setMessage(event.deathMessage() != null ? 
+                PlainTextComponentSerializer.plainText().serialize(event.deathMessage()) : "");
+            executor.executeEvent(EventHandler.EventType.PLAYER_DEATH, context);
+        } finally {
+            executor.releaseContext(context);
+        }
     }
 
-    @org.bukkit.event.EventHandler
     public void onRespawn(PlayerRespawnEvent event) {
-        execute(EventHandler.EventType.PLAYER_RESPAWN, event.getPlayer(), event, null);
+        dispatch(EventHandler.EventType.PLAYER_RESPAWN, event.getPlayer(), event);
     }
 
-    @org.bukkit.event.EventHandler
     public void onDamage(EntityDamageEvent event) {
         if (!(event.getEntity() instanceof Player player)) return;
+        if (!plugin.getEventRegistry().hasHandlers(EventHandler.EventType.PLAYER_DAMAGE)) return;
 
-        Map<String, Object> extra = new HashMap<>();
-        extra.put("damage", event.getDamage());
-        extra.put("cause", event.getCause().name());
-        
-        execute(EventHandler.EventType.PLAYER_DAMAGE, player, event, extra);
+        ExecutionContext context = executor.acquireContext(player, event);
+        try {
+            context.setDamage(event.getDamage());
+            context.setCause(event.getCause().name());
+            executor.executeEvent(EventHandler.EventType.PLAYER_DAMAGE, context);
+        } finally {
+            executor.releaseContext(context);
+        }
     }
 
     /**
-     * Centralized execution bridge
+     * Runs the handlers of a main-thread event that only needs the player and the event
      */
-    private void execute(EventHandler.EventType type, Player player, org.bukkit.event.Event event, Map<String, Object> extra) {
-        Map<String, Object> context = new HashMap<>();
-        context.put("player", player);
-        context.put("event", event);
-        if (extra != null) context.putAll(extra);
+    private void dispatch(EventHandler.EventType type, Player player, org.bukkit.event.Event event) {
+        if (!plugin.getEventRegistry().hasHandlers(type)) return;
         
-        // This method must exist in EnhancedScriptExecutor
-        executor.executeEvent(type, context);
+        ExecutionContext context = executor.acquireContext(player, event);
+        try {
+            executor.executeEvent(type, context);
+        } finally {
+            executor.releaseContext(context);
+        }
     }
 }
\ No newline at end of file
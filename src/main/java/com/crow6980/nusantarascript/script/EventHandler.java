@@ -3,6 +3,7 @@ package com.crow6980.nusantarascript.script;
 import com.crow6980.nusantarascript.condition.ConditionalBlock;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -32,12 +33,19 @@ public class EventHandler {
     private final int lineNumber;
     private final List<Action> actions;
     private final List<ConditionalBlock> conditionalBlocks;
+    private long cooldownMillis; // tunggu: N detik, 0 = none
+    
+    // Read-only views handed out by the getters, so callers never copy
+    private final List<Action> actionsView;
+    private final List<ConditionalBlock> conditionalBlocksView;
     
     public EventHandler(EventType eventType, int lineNumber) {
         this.eventType = eventType;
         this.lineNumber = lineNumber;
         this.actions = new ArrayList<>();
         this.conditionalBlocks = new ArrayList<>();
+        this.actionsView = Collections.unmodifiableList(actions);
+        this.conditionalBlocksView = Collections.unmodifiableList(conditionalBlocks);
     }
     
     public void addAction(Action action) {
@@ -48,6 +56,10 @@ public class EventHandler {
         conditionalBlocks.add(block);
     }
     
+    public void setCooldownMillis(long cooldownMillis) {
+        this.cooldownMillis = cooldownMillis;
+    }
+    
     public EventType getEventType() {
         return eventType;
     }
@@ -56,12 +68,25 @@ public class EventHandler {
         return lineNumber;
     }
     
+    /**
+     * @return Per-player cooldown from "tunggu: N detik", or 0
+     */
+    public long getCooldownMillis() {
+        return cooldownMillis;
+    }
+    
+    /**
+     * @return Read-only view of the top-level actions
+     */
     public List<Action> getActions() {
-        return new ArrayList<>(actions);
+        return actionsView;
     }
     
+    /**
+     * @return Read-only view of the jika blocks
+     */
     public List<ConditionalBlock> getConditionalBlocks() {
-        return new ArrayList<>(conditionalBlocks);
+        return conditionalBlocksView;
     }
     
     @Override
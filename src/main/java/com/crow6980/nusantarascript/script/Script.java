@@ -19,26 +19,32 @@ public class Script {
     
     public Script(String filename, List<EventHandler> eventHandlers) {
         this.filename = filename;
-        this.eventHandlers = new ArrayList<>(eventHandlers);
-        this.customCommands = new ArrayList<>();
+        this.eventHandlers = List.copyOf(eventHandlers);
+        this.customCommands = List.of();
     }
     
     public Script(String filename, List<EventHandler> eventHandlers, List<CustomCommand> customCommands) {
         this.filename = filename;
-        this.eventHandlers = new ArrayList<>(eventHandlers);
-        this.customCommands = new ArrayList<>(customCommands);
+        this.eventHandlers = List.copyOf(eventHandlers);
+        this.customCommands = List.copyOf(customCommands);
     }
     
     public String getFilename() {
         return filename;
     }
     
+    /**
+     * @return Immutable list of the event handlers
+     */
     public List<EventHandler> getEventHandlers() {
-        return new ArrayList<>(eventHandlers);
+        return eventHandlers;
     }
     
+    /**
+     * @return Immutable list of the custom commands
+     */
     public List<CustomCommand> getCustomCommands() {
-        return new ArrayList<>(customCommands);
+        return customCommands;
     }
     
     /**
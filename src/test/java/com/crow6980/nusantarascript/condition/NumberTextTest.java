@@ -0,0 +1,80 @@
+package com.crow6980.nusantarascript.condition;
+
+import com.crow6980.nusantarascript.compiler.Instruction;
+import com.crow6980.nusantarascript.execution.ExecutionContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Variables that hold a number compare as text the way messages show them:
+ * after setel {x} = 5 or tambah 5 ke {_x}, the value is "5", not "5.0".
+ *
+ * @author crow6980
+ */
+class NumberTextTest {
+
+    @Test
+    void numbersReadAsScriptText() {
+        assertEquals("5", Condition.Operand.toText(5.0));
+        assertEquals("-3", Condition.Operand.toText(-3.0));
+        assertEquals("2.5", Condition.Operand.toText(2.5));
+        assertEquals("hai", Condition.Operand.toText("hai"));
+        assertNull(Condition.Operand.toText(null));
+    }
+
+    @Test
+    void onlyCanonicalConstantsAreStoredAsNumbers() {
+        assertEquals(5.0, Instruction.SetVariable.constantNumber("5"));
+        assertEquals(-3.0, Instruction.SetVariable.constantNumber("-3"));
+        assertEquals(2.5, Instruction.SetVariable.constantNumber("2.5"));
+
+        // These would not read back as written, so they stay text
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber("007")));
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber("1.50")));
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber("5f")));
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber(" 5 ")));
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber("1e3")));
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber("Infinity")));
+        assertTrue(Double.isNaN(Instruction.SetVariable.constantNumber("hai")));
+    }
+
+    @Test
+    void numericLocalEqualsItsText() {
+        ExecutionContext context = counter(5);
+
+        assertTrue(condition("{_x} adalah \"5\"").evaluate(context));
+        assertFalse(condition("{_x} adalah \"5.0\"").evaluate(context));
+        assertTrue(condition("{_x} diawali dengan \"5\"").evaluate(context));
+    }
+
+    @Test
+    void textSwitchPicksTheNumberCase() {
+        ExecutionContext context = counter(5);
+        Condition.Operand subject = ((Condition.ExpressionCondition) condition("{_x} adalah \"5\"")).getLeft();
+
+        // The "5" case stops, the fallback does not
+        Instruction.TextSwitch choice = new Instruction.TextSwitch(subject,
+                Map.of("5", new Instruction[]{ new Instruction.Stop(1) }), new Instruction[0], 1);
+        assertFalse(choice.execute(context));
+    }
+
+    /**
+     * A context whose local {_x} was counted up to the given value
+     */
+    private static ExecutionContext counter(double value) {
+        ExecutionContext context = new ExecutionContext(null, null);
+        context.resetLocals(1);
+        new Instruction.ModifyLocal(0, value, 1).execute(context);
+        return context;
+    }
+
+    private static Condition condition(String expression) {
+        return new Condition.ExpressionCondition(expression, 1).withLocals(name -> 0);
+    }
+}
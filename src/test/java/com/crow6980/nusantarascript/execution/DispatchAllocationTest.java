@@ -0,0 +1,138 @@
+package com.crow6980.nusantarascript.execution;
+
+import com.crow6980.nusantarascript.compiler.CompiledHandler;
+import com.crow6980.nusantarascript.compiler.CompiledScript;
+import com.crow6980.nusantarascript.compiler.Instruction;
+import com.crow6980.nusantarascript.condition.Condition;
+import com.crow6980.nusantarascript.registry.EventRegistry;
+import com.crow6980.nusantarascript.script.EventHandler;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The steady-state dispatch path allocates nothing per event:
+ * {@link EnhancedScriptExecutor#executeEvent} with a pooled context, the
+ * handler arrays and block index of the {@link EventRegistry}, the outbox,
+ * the budget accounts, the guard check and the compiled instructions.
+ *
+ * The executor runs against a fake {@link ServerClock} that reports the main
+ * thread and starts a new tick for every event, so budgets are measured as on
+ * a server. No Bukkit listeners are registered.
+ *
+ * @author crow6980
+ */
+class DispatchAllocationTest {
+
+    private static final int EVENTS = 200_000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 5;
+
+    private final TickingClock clock = new TickingClock();
+    private final Block stone = block(Material.STONE);
+    private final Block dirt = block(Material.DIRT);
+
+    @Test
+    void pooledDispatchAllocatesNothingPerEvent() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "JVM tanpa com.sun.management.ThreadMXBean");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported(), "JVM tidak mengukur alokasi per thread");
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        EventRegistry[] registry = new EventRegistry[1];
+        EnhancedScriptExecutor executor = new EnhancedScriptExecutor(null, null, new MemoryConfiguration(),
+                () -> registry[0], clock);
+        registry[0] = new EventRegistry(null, executor, type -> null);
+        registry[0].registerScript(new CompiledScript("a.ns", handlers(), List.of(), List.of(), List.of()));
+
+        // Let the JIT settle first; compiling may allocate on this thread
+        for (int round = 0; round < WARMUP_ROUNDS; round++) dispatch(executor);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocations.getCurrentThreadAllocatedBytes();
+            dispatch(executor);
+            best = Math.min(best, allocations.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        double perEvent = (double) best / (2 * EVENTS);
+        assertTrue(perEvent < 0.01, "Dispatch mengalokasikan " + perEvent + " byte per event (" + best + " byte per "
+                + 2 * EVENTS + " event)");
+    }
+
+    /**
+     * One damage and one block break event per round, alternating the block type
+     */
+    private void dispatch(EnhancedScriptExecutor executor) {
+        for (int i = 0; i < EVENTS; i++) {
+            clock.tick++;
+            ExecutionContext context = executor.acquireContext(null, null);
+            try {
+                context.setDamage(i & 7);
+                executor.executeEvent(EventHandler.EventType.PLAYER_DAMAGE, context);
+            } finally {
+                executor.releaseContext(context);
+            }
+
+            context = executor.acquireContext(null, null);
+            try {
+                context.setBlock((i & 1) == 0 ? stone : dirt);
+                executor.executeEvent(EventHandler.EventType.BLOCK_BREAK, context);
+            } finally {
+                executor.releaseContext(context);
+            }
+        }
+    }
+
+    /**
+     * Two damage handlers with conditions, a local counter and an early stop,
+     * and a block handler guarded by blok adalah "STONE"
+     */
+    private static List<CompiledHandler> handlers() {
+        Instruction[] counting = {
+                new Instruction.Branch(new Condition.ExpressionCondition("{damage} > 3", 1),
+                        new Instruction[]{ new Instruction.ModifyLocal(0, 1, 2) },
+                        new Instruction[]{ new Instruction.Stop(3) }, 1)
+        };
+        Instruction[] stopping = {
+                new Instruction.Branch(new Condition.ExpressionCondition("{damage} < 3", 1),
+                        new Instruction[]{ new Instruction.Stop(2) }, new Instruction[0], 1)
+        };
+        Instruction[] mining = {
+                new Instruction.Branch(new Condition.BlockTypeCondition("STONE", 1),
+                        new Instruction[]{ new Instruction.ModifyLocal(0, 1, 2) }, new Instruction[0], 1)
+        };
+        return List.of(
+                new CompiledHandler(EventHandler.EventType.PLAYER_DAMAGE, "a.ns", 1, counting,
+                        context -> Instruction.runAll(counting, context), 1, false, 0),
+                new CompiledHandler(EventHandler.EventType.PLAYER_DAMAGE, "a.ns", 5, stopping,
+                        context -> Instruction.runAll(stopping, context), 0, false, 0),
+                new CompiledHandler(EventHandler.EventType.BLOCK_BREAK, "a.ns", 9, mining,
+                        context -> Instruction.runAll(mining, context), 1, false, 0));
+    }
+
+    /**
+     * A block that only knows its type
+     */
+    private static Block block(Material type) {
+        return (Block) Proxy.newProxyInstance(Block.class.getClassLoader(), new Class<?>[]{ Block.class },
+                (proxy, method, args) -> method.getName().equals("getType") ? type : null);
+    }
+
+    private static final class TickingClock implements ServerClock {
+        int tick;
+
+        @Override public boolean isPrimaryThread() { return true; }
+        @Override public int getCurrentTick() { return tick; }
+    }
+}
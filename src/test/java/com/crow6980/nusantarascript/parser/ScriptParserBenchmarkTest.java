@@ -0,0 +1,95 @@
+package com.crow6980.nusantarascript.parser;
+
+import com.crow6980.nusantarascript.script.Script;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parse throughput of the token-stream {@link ScriptParser} against the old
+ * {@link LineScriptParser} on a large generated script.
+ *
+ * Opt-in, as it takes a few seconds: mvn test -Dbenchmark=true
+ *
+ * @author crow6980
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ScriptParserBenchmarkTest {
+
+    private static final int BLOCKS = 5000;   // handlers, and as many commands
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    @Test
+    void compareThroughput(TestReporter reporter) {
+        String source = generate(BLOCKS);
+        List<String> lines = source.lines().toList();
+        double megabytes = source.getBytes(StandardCharsets.UTF_8).length / (1024.0 * 1024.0);
+
+        ScriptParser parser = new ScriptParser(null);
+        LineScriptParser baseline = new LineScriptParser();
+
+        // Both must see the same script before their speed means anything
+        Script current = parser.parse("bench.ns", source);
+        Script old = baseline.parse("bench.ns", lines);
+        assertEquals(old.getEventHandlers().size(), current.getEventHandlers().size());
+        assertEquals(old.getCustomCommands().size(), current.getCustomCommands().size());
+
+        double oldRate = megabytes / seconds(() -> baseline.parse("bench.ns", lines));
+        double newRate = megabytes / seconds(() -> parser.parse("bench.ns", source));
+
+        reporter.publishEntry("skrip", String.format("%.1f MB (%d handlers, %d perintah)", megabytes, BLOCKS, BLOCKS));
+        reporter.publishEntry("parser baris", String.format("%.1f MB/s", oldRate));
+        reporter.publishEntry("parser token", String.format("%.1f MB/s (%.2fx)", newRate, newRate / oldRate));
+
+        assertTrue(newRate > oldRate, String.format(
+                "parser token (%.1f MB/s) tidak lebih cepat dari parser baris (%.1f MB/s)", newRate, oldRate));
+    }
+
+    /**
+     * Best time of one parse after warm-up, in seconds
+     */
+    private static double seconds(Supplier<Script> parse) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) parse.get();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            parse.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e9;
+    }
+
+    /**
+     * A script with the statements both parsers understand: messages,
+     * variables, conditions and commands with a permission
+     */
+    static String generate(int blocks) {
+        StringBuilder sb = new StringBuilder(blocks * 400);
+        for (int i = 0; i < blocks; i++) {
+            sb.append("# Blok ").append(i).append('\n');
+            sb.append(i % 2 == 0 ? "saat pemain masuk:\n" : "saat blok dihancurkan:\n");
+            sb.append("    kirim \"&aHalo %player%, kunjungan ke-{kunjungan.%player%}\" ke pemain\n");
+            sb.append("    tambah 1 ke variabel {kunjungan.%player%}\n");
+            sb.append("    jika {kunjungan.%player%} > ").append(i % 50).append(":\n");
+            sb.append("        kirim \"&6Terima kasih sudah bermain!\" ke pemain\n");
+            sb.append("        atur variabel {setia.%player%} menjadi \"ya\"\n");
+            sb.append("    broadcast \"&b%player% &7aktif (").append(i).append(")\"\n");
+            sb.append('\n');
+            sb.append("perintah /cek").append(i).append(" [<target>]:\n");
+            sb.append("    izin: \"nusantara.cek").append(i).append("\"\n");
+            sb.append("    aksi:\n");
+            sb.append("        kirim \"&eStatistik ").append(i).append("\" ke pemain\n");
+            sb.append("        kurangi 2 dari variabel {kuota}\n");
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}